@@ -1,17 +1,22 @@
-/* The following code was generated by JFlex 1.4 on 8/9/16 1:40 AM */
+/* The following code was generated by JFlex 1.4 on 10/18/26, 10:20 AM */
 
 /* You do not need to change anything up here. */
 package lexer;
 
+import frontend.LexicalError;
+import frontend.LineIndex;
 import frontend.Token;
+import frontend.SymbolTable;
+import frontend.TokenBuffer;
+import java.util.List;
 import static frontend.Token.Type.*;
 
 
 /**
  * This class is a scanner generated by 
  * <a href="http://www.jflex.de/">JFlex</a> 1.4
- * on 8/9/16 1:40 AM from the specification file
- * <tt>/Users/edocsss/AEC/programming/CZ3007/lab1/Lab1/src/frontend/lexer.flex</tt>
+ * on 10/18/26, 10:20 AM from the specification file
+ * <tt>/root/project/lab1/Lab1/src/frontend/lexer.flex</tt>
  */
 public final class Lexer {
 
@@ -28,13 +33,13 @@ public final class Lexer {
    * Translates characters to character classes
    */
   private static final String ZZ_CMAP_PACKED = 
-    "\11\0\1\1\1\2\1\0\1\1\1\2\22\0\1\1\1\47\1\52"+
-    "\5\0\1\35\1\40\1\51\1\50\1\32\1\46\1\0\1\42\12\3"+
-    "\1\0\1\41\1\45\1\43\1\44\2\0\32\4\1\33\1\0\1\36"+
-    "\1\0\1\4\1\0\1\11\1\5\1\25\1\23\1\10\1\16\1\4"+
-    "\1\31\1\17\1\4\1\14\1\7\1\20\1\12\1\6\1\21\1\4"+
-    "\1\13\1\15\1\22\1\24\1\27\1\30\1\4\1\26\1\4\1\34"+
-    "\1\0\1\37\uff82\0";
+    "\11\0\1\1\1\3\1\0\1\2\1\4\22\0\1\1\1\51\1\54"+
+    "\5\0\1\37\1\42\1\53\1\52\1\34\1\50\1\0\1\44\12\5"+
+    "\1\0\1\43\1\47\1\45\1\46\2\0\32\6\1\35\1\0\1\40"+
+    "\1\0\1\6\1\0\1\13\1\7\1\27\1\25\1\12\1\20\1\6"+
+    "\1\33\1\21\1\6\1\16\1\11\1\22\1\14\1\10\1\23\1\6"+
+    "\1\15\1\17\1\24\1\26\1\31\1\32\1\6\1\30\1\6\1\36"+
+    "\1\0\1\41\uff82\0";
 
   /** 
    * Translates characters to character classes
@@ -47,16 +52,16 @@ public final class Lexer {
   private static final int [] ZZ_ACTION = zzUnpackAction();
 
   private static final String ZZ_ACTION_PACKED_0 =
-    "\1\0\1\1\1\2\1\3\13\4\1\5\1\6\1\7"+
+    "\1\0\1\1\1\2\2\3\1\4\13\5\1\6\1\7"+
     "\1\10\1\11\1\12\1\13\1\14\1\15\1\16\1\17"+
-    "\1\20\1\21\1\1\1\22\1\23\1\1\6\4\1\24"+
-    "\7\4\1\25\1\26\1\27\1\30\1\0\1\31\5\4"+
-    "\1\32\11\4\1\33\5\4\1\34\1\35\1\36\2\4"+
-    "\1\37\1\4\1\40\3\4\1\41\1\4\1\42\1\43"+
-    "\1\44\1\45\1\46";
+    "\1\20\1\21\1\22\1\1\1\23\1\24\1\25\6\5"+
+    "\1\26\7\5\1\27\1\30\1\31\1\32\1\33\5\5"+
+    "\1\34\11\5\1\35\5\5\1\36\1\37\1\40\2\5"+
+    "\1\41\1\5\1\42\3\5\1\43\1\5\1\44\1\45"+
+    "\1\46\1\47\1\50";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[91];
+    int [] result = new int[92];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -81,21 +86,21 @@ public final class Lexer {
   private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
 
   private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\53\0\53\0\126\0\201\0\254\0\327\0\u0102"+
-    "\0\u012d\0\u0158\0\u0183\0\u01ae\0\u01d9\0\u0204\0\u022f\0\53"+
-    "\0\53\0\53\0\53\0\53\0\53\0\53\0\53\0\53"+
-    "\0\u025a\0\u0285\0\u02b0\0\53\0\u02db\0\53\0\53\0\u0306"+
-    "\0\u0331\0\u035c\0\u0387\0\u03b2\0\u03dd\0\u0408\0\201\0\u0433"+
-    "\0\u045e\0\u0489\0\u04b4\0\u04df\0\u050a\0\u0535\0\53\0\53"+
-    "\0\53\0\53\0\u0306\0\53\0\u0560\0\u058b\0\u05b6\0\u05e1"+
-    "\0\u060c\0\201\0\u0637\0\u0662\0\u068d\0\u06b8\0\u06e3\0\u070e"+
-    "\0\u0739\0\u0764\0\u078f\0\201\0\u07ba\0\u07e5\0\u0810\0\u083b"+
-    "\0\u0866\0\201\0\201\0\201\0\u0891\0\u08bc\0\201\0\u08e7"+
-    "\0\201\0\u0912\0\u093d\0\u0968\0\201\0\u0993\0\201\0\201"+
-    "\0\201\0\201\0\201";
+    "\0\0\0\55\0\55\0\55\0\132\0\207\0\264\0\341"+
+    "\0\u010e\0\u013b\0\u0168\0\u0195\0\u01c2\0\u01ef\0\u021c\0\u0249"+
+    "\0\u0276\0\55\0\55\0\55\0\55\0\55\0\55\0\55"+
+    "\0\55\0\55\0\u02a3\0\u02d0\0\u02fd\0\55\0\u032a\0\55"+
+    "\0\55\0\u0357\0\u0384\0\u03b1\0\u03de\0\u040b\0\u0438\0\u0465"+
+    "\0\264\0\u0492\0\u04bf\0\u04ec\0\u0519\0\u0546\0\u0573\0\u05a0"+
+    "\0\55\0\55\0\55\0\55\0\55\0\u05cd\0\u05fa\0\u0627"+
+    "\0\u0654\0\u0681\0\264\0\u06ae\0\u06db\0\u0708\0\u0735\0\u0762"+
+    "\0\u078f\0\u07bc\0\u07e9\0\u0816\0\264\0\u0843\0\u0870\0\u089d"+
+    "\0\u08ca\0\u08f7\0\264\0\264\0\264\0\u0924\0\u0951\0\264"+
+    "\0\u097e\0\264\0\u09ab\0\u09d8\0\u0a05\0\264\0\u0a32\0\264"+
+    "\0\264\0\264\0\264\0\264";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[91];
+    int [] result = new int[92];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -118,42 +123,42 @@ public final class Lexer {
   private static final int [] ZZ_TRANS = zzUnpackTrans();
 
   private static final String ZZ_TRANS_PACKED_0 =
-    "\1\2\2\3\1\4\1\5\1\6\2\5\1\7\2\5"+
-    "\1\10\2\5\1\11\1\12\1\13\1\14\1\15\4\5"+
-    "\1\16\1\17\1\5\1\20\1\21\1\22\1\23\1\24"+
+    "\1\2\1\3\2\4\1\5\1\6\1\7\1\10\2\7"+
+    "\1\11\2\7\1\12\2\7\1\13\1\14\1\15\1\16"+
+    "\1\17\4\7\1\20\1\21\1\7\1\22\1\23\1\24"+
     "\1\25\1\26\1\27\1\30\1\31\1\32\1\33\1\34"+
-    "\1\35\1\36\1\37\1\40\56\0\1\4\52\0\27\5"+
-    "\24\0\3\5\1\41\4\5\1\42\16\5\24\0\4\5"+
-    "\1\43\22\5\24\0\5\5\1\44\21\5\24\0\6\5"+
-    "\1\45\20\5\24\0\7\5\1\46\3\5\1\47\1\5"+
-    "\1\50\11\5\24\0\3\5\1\51\23\5\24\0\21\5"+
-    "\1\52\5\5\24\0\10\5\1\53\12\5\1\54\3\5"+
-    "\24\0\3\5\1\55\23\5\24\0\26\5\1\56\64\0"+
-    "\1\57\52\0\1\60\52\0\1\61\52\0\1\62\7\0"+
-    "\2\63\1\0\47\63\1\64\3\0\3\5\1\65\23\5"+
-    "\24\0\5\5\1\66\21\5\24\0\12\5\1\67\14\5"+
-    "\24\0\17\5\1\70\7\5\24\0\4\5\1\71\22\5"+
-    "\24\0\17\5\1\72\7\5\24\0\16\5\1\73\10\5"+
-    "\24\0\20\5\1\74\6\5\24\0\2\5\1\75\24\5"+
-    "\24\0\21\5\1\76\5\5\24\0\16\5\1\77\10\5"+
-    "\24\0\14\5\1\100\12\5\24\0\14\5\1\101\12\5"+
-    "\24\0\4\5\1\102\22\5\24\0\6\5\1\103\20\5"+
-    "\24\0\5\5\1\104\21\5\24\0\21\5\1\105\5\5"+
-    "\24\0\12\5\1\106\14\5\24\0\3\5\1\107\23\5"+
-    "\24\0\21\5\1\110\5\5\24\0\4\5\1\111\22\5"+
-    "\24\0\5\5\1\112\21\5\24\0\5\5\1\113\21\5"+
-    "\24\0\20\5\1\114\6\5\24\0\4\5\1\115\22\5"+
-    "\24\0\5\5\1\116\21\5\24\0\11\5\1\117\15\5"+
-    "\24\0\10\5\1\120\16\5\24\0\5\5\1\121\21\5"+
-    "\24\0\10\5\1\122\16\5\24\0\4\5\1\123\22\5"+
-    "\24\0\14\5\1\124\12\5\24\0\5\5\1\125\21\5"+
-    "\24\0\6\5\1\126\20\5\24\0\7\5\1\127\17\5"+
-    "\24\0\17\5\1\130\7\5\24\0\5\5\1\131\21\5"+
-    "\24\0\22\5\1\132\4\5\24\0\7\5\1\133\17\5"+
-    "\21\0";
+    "\1\35\1\36\1\37\1\40\1\41\1\42\60\0\1\4"+
+    "\56\0\1\6\54\0\27\7\26\0\3\7\1\43\4\7"+
+    "\1\44\16\7\26\0\4\7\1\45\22\7\26\0\5\7"+
+    "\1\46\21\7\26\0\6\7\1\47\20\7\26\0\7\7"+
+    "\1\50\3\7\1\51\1\7\1\52\11\7\26\0\3\7"+
+    "\1\53\23\7\26\0\21\7\1\54\5\7\26\0\10\7"+
+    "\1\55\12\7\1\56\3\7\26\0\3\7\1\57\23\7"+
+    "\26\0\26\7\1\60\66\0\1\61\54\0\1\62\54\0"+
+    "\1\63\54\0\1\64\7\0\3\42\2\0\47\42\1\65"+
+    "\5\0\3\7\1\66\23\7\26\0\5\7\1\67\21\7"+
+    "\26\0\12\7\1\70\14\7\26\0\17\7\1\71\7\7"+
+    "\26\0\4\7\1\72\22\7\26\0\17\7\1\73\7\7"+
+    "\26\0\16\7\1\74\10\7\26\0\20\7\1\75\6\7"+
+    "\26\0\2\7\1\76\24\7\26\0\21\7\1\77\5\7"+
+    "\26\0\16\7\1\100\10\7\26\0\14\7\1\101\12\7"+
+    "\26\0\14\7\1\102\12\7\26\0\4\7\1\103\22\7"+
+    "\26\0\6\7\1\104\20\7\26\0\5\7\1\105\21\7"+
+    "\26\0\21\7\1\106\5\7\26\0\12\7\1\107\14\7"+
+    "\26\0\3\7\1\110\23\7\26\0\21\7\1\111\5\7"+
+    "\26\0\4\7\1\112\22\7\26\0\5\7\1\113\21\7"+
+    "\26\0\5\7\1\114\21\7\26\0\20\7\1\115\6\7"+
+    "\26\0\4\7\1\116\22\7\26\0\5\7\1\117\21\7"+
+    "\26\0\11\7\1\120\15\7\26\0\10\7\1\121\16\7"+
+    "\26\0\5\7\1\122\21\7\26\0\10\7\1\123\16\7"+
+    "\26\0\4\7\1\124\22\7\26\0\14\7\1\125\12\7"+
+    "\26\0\5\7\1\126\21\7\26\0\6\7\1\127\20\7"+
+    "\26\0\7\7\1\130\17\7\26\0\17\7\1\131\7\7"+
+    "\26\0\5\7\1\132\21\7\26\0\22\7\1\133\4\7"+
+    "\26\0\7\7\1\134\17\7\21\0";
 
   private static int [] zzUnpackTrans() {
-    int [] result = new int[2494];
+    int [] result = new int[2655];
     int offset = 0;
     offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -191,11 +196,11 @@ public final class Lexer {
   private static final int [] ZZ_ATTRIBUTE = zzUnpackAttribute();
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
-    "\1\0\2\11\14\1\11\11\3\1\1\11\1\1\2\11"+
-    "\17\1\4\11\1\0\1\11\47\1";
+    "\1\0\3\11\15\1\11\11\3\1\1\11\1\1\2\11"+
+    "\17\1\5\11\47\1";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[91];
+    int [] result = new int[92];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -263,22 +268,202 @@ public final class Lexer {
   private boolean zzAtEOF;
 
   /* user code: */
-	/* These two methods are for the convenience of rules to create toke objects.
-	* If you do not want to use them, delete them
-	* otherwise add the code in 
-	*/
+	/* The whole input, if the lexer was created from a char array; it is scanned in place,
+	 * and tokens refer to ranges of this buffer instead of copying their lexemes.
+	 */
+	private char[] source;
 	
+	/* While tokenize() is running, tokens are appended to this buffer instead of being returned. */
+	private TokenBuffer sink;
+	
+	/* If set, the lexemes of identifiers and string literals are interned in this table. */
+	private SymbolTable symbols;
+	
+	/* If set, lexical errors are recorded in this list and skipped instead of being thrown. */
+	private List<LexicalError> errors;
+	
+	/* Whether JFlex counts lines and columns (%line, %column). The build derives an offset-only
+	 * variant of this lexer that does not, and sets this to false; that lexer instead records
+	 * where lines start as it scans, and takes line and column numbers from those.
+	 */
+	private static final boolean COUNTS_POSITIONS = true;
+	
+	/* The line starts recorded so far, unless JFlex counts positions; yyreset() starts a new
+	 * index (see the reset-line-index step in build.xml).
+	 */
+	private LineIndex.Builder lines = COUNTS_POSITIONS ? null : new LineIndex.Builder(0);
+	
+	/**
+	 * Creates a new scanner over the given source buffer. The tokens it returns share the
+	 * buffer and only build their lexeme strings on demand, so the buffer must not be
+	 * modified afterwards. Such a scanner cannot be reset: {@link #yyreset(java.io.Reader)}
+	 * throws an {@link IllegalStateException}.
+	 */
+	public Lexer(char[] source) {
+		this(source, 0, source.length);
+	}
+	
+	/**
+	 * Creates a new scanner over the range [offset, offset+length) of the given source buffer,
+	 * which has to start at the beginning of a line. Line and column numbers are relative to
+	 * the start of the range, while token offsets are relative to the start of the buffer.
+	 */
+	public Lexer(char[] source, int offset, int length) {
+		this(source, offset, length, 0, 0);
+	}
+	
+	/* Creates a new scanner over a range of the given source buffer that starts at the given
+	 * line and column; used to resume lexing in the middle of a file.
+	 */
+	Lexer(char[] source, int offset, int length, int line, int column) {
+		this(new java.io.CharArrayReader(new char[0]));
+		if(offset < 0 || length < 0 || offset + length > source.length)
+			throw new IndexOutOfBoundsException("range [" + offset + ", " + (offset + length) + ") of " + source.length + " chars");
+		this.source = source;
+		// the whole input is already in memory: scan it directly and never call zzRefill(),
+		// which would otherwise compact the buffer in place
+		this.zzBuffer = source;
+		this.zzStartRead = this.zzMarkedPos = this.zzCurrentPos = offset;
+		this.zzEndRead = offset + length;
+		this.zzAtEOF = true;
+		this.yychar = offset;
+		this.yyline = line;
+		this.yycolumn = column;
+		if(!COUNTS_POSITIONS)
+			this.lines = new LineIndex.Builder(offset);
+	}
+	
+	/**
+	 * Makes the lexer intern the lexemes of the identifiers and string literals it returns in
+	 * the given table, so that equal lexemes are represented by the same string; {@code null}
+	 * turns interning off. Has no effect on {@link #tokenize(TokenBuffer)}, whose tokens can
+	 * be interned with {@link TokenBuffer#getSymbol(int, SymbolTable)}.
+	 */
+	public void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+	
+	/**
+	 * Makes the lexer recover from lexical errors: every unexpected character and every string
+	 * literal that is not closed on its line is added to the given list and skipped, and only
+	 * the valid tokens around them are returned. With {@code null}, the default, the lexer
+	 * throws a {@link LexerError} at the first lexical error instead.
+	 */
+	public void setErrorList(List<LexicalError> errors) {
+		this.errors = errors;
+	}
+	
+	/**
+	 * Lexes the remaining input, up to and including the EOF token, into the given buffer
+	 * without creating {@link Token} objects. The buffer must have been created for the same
+	 * source buffer as this lexer.
+	 */
+	public void tokenize(TokenBuffer dest) throws java.io.IOException {
+		nextTokens(dest, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Lexes up to {@code max} tokens into the given buffer without creating {@link Token}
+	 * objects, and returns the number of tokens added. Fewer than {@code max} tokens are only
+	 * added if the last of them is the EOF token. The buffer must have been created for the
+	 * same source buffer as this lexer.
+	 */
+	public int nextTokens(TokenBuffer dest, int max) throws java.io.IOException {
+		if(source == null || dest.getSource() != source)
+			throw new IllegalArgumentException("token buffer does not belong to this lexer's source");
+		int start = dest.size();
+		sink = dest;
+		try {
+			while(dest.size() - start < max) {
+				nextToken();
+				if(dest.getType(dest.size() - 1) == EOF)
+					break;
+			}
+		} finally {
+			sink = null;
+		}
+		return dest.size() - start;
+	}
+	
+	/* Creates a token covering the whole of yytext(). Tokens with a fixed lexeme (keywords,
+	 * punctuation, operators) never copy their text.
+	 */
 	private Token token(Token.Type type) {
-		return new Token(type, yyline, yycolumn, yytext());
+		if(sink != null) {
+			sink.add(type, line(), column(), yychar, yylength());
+			return null;
+		}
+		if(symbols != null && type == ID)
+			return internedToken(type, zzStartRead, yylength());
+		if(source != null)
+			return new Token(type, line(), column(), source, yychar, yylength());
+		String lexeme = type.getFixedLexeme();
+		return new Token(type, line(), column(), lexeme != null ? lexeme : yytext());
+	}
+	
+	/* Creates a token whose lexeme is yytext() without its first and last character; useful for
+	 * string literals, where the quotes are part of yytext() but not of the lexeme.
+	 */
+	private Token trimmedToken(Token.Type type) {
+		if(sink != null) {
+			sink.add(type, line(), column(), yychar + 1, yylength() - 2);
+			return null;
+		}
+		if(symbols != null)
+			return internedToken(type, zzStartRead + 1, yylength() - 2);
+		if(source != null)
+			return new Token(type, line(), column(), source, yychar + 1, yylength() - 2);
+		return new Token(type, line(), column(), new String(zzBuffer, zzStartRead + 1, yylength() - 2));
+	}
+	
+	/* Reports a lexical error covering yytext(): records it if the lexer recovers from errors,
+	 * and throws it otherwise.
+	 */
+	private void error(String message) {
+		if(errors == null)
+			throw new LexerError(message);
+		errors.add(new LexicalError(line(), column(), yychar, yylength(), message));
+		recordLines();
+	}
+	
+	/**
+	 * Returns the index of the lines this lexer has scanned so far, which it records as it
+	 * scans; once it has returned the EOF token, that is the index of its whole input. Returns
+	 * {@code null} if the lexer counts lines and columns itself and records no line starts.
+	 */
+	public LineIndex getLineIndex() {
+		return lines == null ? null : lines.build();
+	}
+	
+	/* The line and column of yytext(), counted by JFlex or taken from the recorded line starts;
+	 * yyline and yycolumn then keep the position at which the lexer started.
+	 */
+	
+	private int line() {
+		return COUNTS_POSITIONS ? yyline : yyline + lines.getLineCount() - 1;
 	}
 	
-	/* Use this method for rules where you need to process yytext() to get the lexeme of the token.
-	 *
-	 * Useful for string literals; e.g., the quotes around the literal are part of yytext(),
-	 *       but they should not be part of the lexeme. 
-	*/
-	private Token token(Token.Type type, String text) {
-		return new Token(type, yyline, yycolumn, text);
+	private int column() {
+		if(COUNTS_POSITIONS)
+			return yycolumn;
+		return (lines.getLineCount() == 1 ? yycolumn : 0) + yychar - lines.getLastLineStart();
+	}
+	
+	/* Records the line starts inside yytext() unless JFlex counts positions; only needed for
+	 * matches other than line terminators that can span lines, such as string literals
+	 * containing U+2028.
+	 */
+	private void recordLines() {
+		if(!COUNTS_POSITIONS)
+			lines.scan(zzBuffer, zzStartRead, zzMarkedPos, yychar);
+	}
+	
+	/* Creates a token whose lexeme is the given range of zzBuffer, interned in the symbol table. */
+	private Token internedToken(Token.Type type, int start, int length) {
+		String lexeme = symbols.getName(symbols.intern(zzBuffer, start, length));
+		if(source != null)
+			return new Token(type, line(), column(), source, start, length, lexeme);
+		return new Token(type, line(), column(), lexeme);
 	}
 
 
@@ -389,12 +574,16 @@ public final class Lexer {
    * @param reader   the new input stream 
    */
   public final void yyreset(java.io.Reader reader) {
+    if (source != null)
+      throw new IllegalStateException("cannot reset a lexer that scans a source array");
     zzReader = reader;
     zzAtBOL  = true;
     zzAtEOF  = false;
     zzEndRead = zzStartRead = 0;
     zzCurrentPos = zzMarkedPos = zzPushbackPos = 0;
     yyline = yychar = yycolumn = 0;
+    if (!COUNTS_POSITIONS)
+      lines = new LineIndex.Builder(0);
     zzLexicalState = YYINITIAL;
   }
 
@@ -517,6 +706,8 @@ public final class Lexer {
     while (true) {
       zzMarkedPosL = zzMarkedPos;
 
+      yychar+= zzMarkedPosL-zzStartRead;
+
       boolean zzR = false;
       for (zzCurrentPosL = zzStartRead; zzCurrentPosL < zzMarkedPosL;
                                                              zzCurrentPosL++) {
@@ -619,159 +810,166 @@ public final class Lexer {
       zzMarkedPos = zzMarkedPosL;
 
       switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
-        case 20: 
-          { return new Token(IF, yyline, yycolumn, yytext());
-          }
-        case 39: break;
-        case 10: 
-          { return new Token(RCURLY, yyline, yycolumn, yytext());
-          }
-        case 40: break;
-        case 7: 
-          { return new Token(LCURLY, yyline, yycolumn, yytext());
+        case 30: 
+          { return token(TRUE);
           }
         case 41: break;
-        case 19: 
-          { return new Token(TIMES, yyline, yycolumn, yytext());
+        case 31: 
+          { return token(TYPE);
           }
         case 42: break;
-        case 13: 
-          { return new Token(DIV, yyline, yycolumn, yytext());
+        case 22: 
+          { return token(IF);
           }
         case 43: break;
-        case 27: 
-          { return new Token(ELSE, yyline, yycolumn, yytext());
+        case 32: 
+          { return token(VOID);
           }
         case 44: break;
-        case 26: 
-          { return new Token(INT, yyline, yycolumn, yytext());
+        case 29: 
+          { return token(ELSE);
           }
         case 45: break;
-        case 22: 
-          { return new Token(GEQ, yyline, yycolumn, yytext());
+        case 20: 
+          { return token(TIMES);
           }
         case 46: break;
-        case 14: 
-          { return new Token(EQL, yyline, yycolumn, yytext());
+        case 40: 
+          { return token(BOOLEAN);
           }
         case 47: break;
-        case 1: 
-          { throw new Error("unexpected character '" + yytext() + "'");
+        case 38: 
+          { return token(MODULE);
           }
         case 48: break;
-        case 29: 
-          { return new Token(TYPE, yyline, yycolumn, yytext());
+        case 35: 
+          { return token(WHILE);
           }
         case 49: break;
-        case 34: 
-          { return new Token(RETURN, yyline, yycolumn, yytext());
+        case 36: 
+          { return token(RETURN);
           }
         case 50: break;
-        case 18: 
-          { return new Token(PLUS, yyline, yycolumn, yytext());
+        case 33: 
+          { return token(BREAK);
           }
         case 51: break;
-        case 38: 
-          { return new Token(BOOLEAN, yyline, yycolumn, yytext());
+        case 4: 
+          { return token(INT_LITERAL);
           }
         case 52: break;
-        case 25: 
-          { String text = yytext();
-					return new Token(STRING_LITERAL, yyline, yycolumn, text.substring(1, text.length() - 1));
+        case 21: 
+          { error(errors == null ? "unexpected character '\"'" : "unterminated string literal");
           }
         case 53: break;
         case 5: 
-          { return new Token(COMMA, yyline, yycolumn, yytext());
+          { return token(ID);
           }
         case 54: break;
-        case 3: 
-          { return new Token(INT_LITERAL, yyline, yycolumn, yytext());
+        case 8: 
+          { return token(LCURLY);
           }
         case 55: break;
-        case 24: 
-          { return new Token(NEQ, yyline, yycolumn, yytext());
+        case 25: 
+          { return token(LEQ);
           }
         case 56: break;
-        case 36: 
-          { return new Token(MODULE, yyline, yycolumn, yytext());
+        case 18: 
+          { return token(MINUS);
           }
         case 57: break;
         case 37: 
-          { return new Token(PUBLIC, yyline, yycolumn, yytext());
+          { return token(IMPORT);
           }
         case 58: break;
-        case 6: 
-          { return new Token(LBRACKET, yyline, yycolumn, yytext());
+        case 9: 
+          { return token(LPAREN);
           }
         case 59: break;
-        case 9: 
-          { return new Token(RBRACKET, yyline, yycolumn, yytext());
+        case 1: 
+          { error("unexpected character '" + yytext() + "'");
           }
         case 60: break;
-        case 11: 
-          { return new Token(RPAREN, yyline, yycolumn, yytext());
+        case 7: 
+          { return token(LBRACKET);
           }
         case 61: break;
-        case 12: 
-          { return new Token(SEMICOLON, yyline, yycolumn, yytext());
+        case 13: 
+          { return token(SEMICOLON);
           }
         case 62: break;
-        case 16: 
-          { return new Token(LT, yyline, yycolumn, yytext());
+        case 28: 
+          { return token(INT);
           }
         case 63: break;
-        case 32: 
-          { return new Token(FALSE, yyline, yycolumn, yytext());
+        case 6: 
+          { return token(COMMA);
           }
         case 64: break;
-        case 8: 
-          { return new Token(LPAREN, yyline, yycolumn, yytext());
+        case 23: 
+          { return token(EQEQ);
           }
         case 65: break;
-        case 23: 
-          { return new Token(LEQ, yyline, yycolumn, yytext());
+        case 14: 
+          { return token(DIV);
           }
         case 66: break;
-        case 15: 
-          { return new Token(GT, yyline, yycolumn, yytext());
+        case 34: 
+          { return token(FALSE);
           }
         case 67: break;
-        case 30: 
-          { return new Token(VOID, yyline, yycolumn, yytext());
+        case 16: 
+          { return token(GT);
           }
         case 68: break;
-        case 17: 
-          { return new Token(MINUS, yyline, yycolumn, yytext());
+        case 3: 
+          { if(!COUNTS_POSITIONS) lines.addLineStart(yychar + yylength());
           }
         case 69: break;
-        case 35: 
-          { return new Token(IMPORT, yyline, yycolumn, yytext());
+        case 17: 
+          { return token(LT);
           }
         case 70: break;
-        case 4: 
-          { return new Token(ID, yyline, yycolumn, yytext());
+        case 24: 
+          { return token(GEQ);
           }
         case 71: break;
-        case 31: 
-          { return new Token(BREAK, yyline, yycolumn, yytext());
+        case 10: 
+          { return token(RBRACKET);
           }
         case 72: break;
-        case 21: 
-          { return new Token(EQEQ, yyline, yycolumn, yytext());
+        case 15: 
+          { return token(EQL);
           }
         case 73: break;
-        case 33: 
-          { return new Token(WHILE, yyline, yycolumn, yytext());
+        case 11: 
+          { return token(RCURLY);
           }
         case 74: break;
-        case 28: 
-          { return new Token(TRUE, yyline, yycolumn, yytext());
+        case 26: 
+          { return token(NEQ);
           }
         case 75: break;
+        case 39: 
+          { return token(PUBLIC);
+          }
+        case 76: break;
+        case 12: 
+          { return token(RPAREN);
+          }
+        case 77: break;
+        case 27: 
+          { Token token = trimmedToken(STRING_LITERAL); recordLines(); return token;
+          }
+        case 78: break;
+        case 19: 
+          { return token(PLUS);
+          }
+        case 79: break;
         case 2: 
           { 
           }
-        case 76: break;
+        case 80: break;
         default: 
           if (zzInput == YYEOF && zzStartRead == zzCurrentPos) {
             zzAtEOF = true;
@@ -0,0 +1,51 @@
+package frontend;
+
+/**
+ * A piece of input the lexer could not turn into a token, such as an unexpected character or
+ * a string literal that is not closed on its line. Lexers that recover from errors record one
+ * of these for every such piece of input, and carry on lexing after it.
+ */
+public final class LexicalError {
+	private final int line, column, offset, length;
+	private final String message;
+
+	public LexicalError(int line, int column, int offset, int length, String message) {
+		assert line >= 0;
+		assert column >= 0;
+		assert length >= 0;
+		assert message != null;
+
+		this.line = line;
+		this.column = column;
+		this.offset = offset;
+		this.length = length;
+		this.message = message;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+
+	/** Returns the offset of the offending input from the start of the lexer's input. */
+	public int getOffset() {
+		return offset;
+	}
+
+	/** Returns the number of characters of input that were skipped. */
+	public int getLength() {
+		return length;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return line + ":" + column + ": " + message;
+	}
+}
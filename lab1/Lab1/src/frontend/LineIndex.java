@@ -0,0 +1,138 @@
+package frontend;
+
+import java.util.Arrays;
+
+/**
+ * The offsets at which the lines of a source buffer start, for turning character offsets into
+ * line and column numbers on demand. Lines are broken exactly where the JFlex-generated lexer
+ * counts a new line: at {@code \r\n}, {@code \r}, {@code \n}, {@code \f}, and at the characters
+ * U+000B, U+0085, U+2028 and U+2029.
+ *
+ * Lexers that do not count lines and columns character by character (see
+ * {@code lexer.OffsetLexer}) record the line starts with a {@link Builder} as they scan instead.
+ * Together with a line index, a {@link TokenBuffer} can also report line and column numbers for
+ * tokens of which only the offsets were stored.
+ */
+public final class LineIndex {
+	/** The offset of the first character of each line, in increasing order. */
+	private final int[] lineStarts;
+	private final int lineCount;
+
+	/** Builds the line index of the whole buffer. */
+	public LineIndex(char[] source) {
+		this(source, 0, source.length);
+	}
+
+	/** Builds the line index of the range [offset, offset+length) of the buffer, which starts line 0. */
+	public LineIndex(char[] source, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > source.length)
+			throw new IndexOutOfBoundsException("range [" + offset + ", " + (offset + length) + ") of " + source.length + " chars");
+
+		// on typical PL/3007 code a line takes about thirty characters
+		Builder builder = new Builder(offset, length / 30);
+		builder.scan(source, offset, offset + length, offset);
+		this.lineStarts = builder.starts;
+		this.lineCount = builder.count;
+	}
+
+	private LineIndex(int[] lineStarts, int lineCount) {
+		this.lineStarts = lineStarts;
+		this.lineCount = lineCount;
+	}
+
+	/**
+	 * Collects the line starts of a source buffer, for lexers that record them while they scan.
+	 * The indexes it builds share its array, which it only ever appends to, so building an
+	 * index does not copy the line starts recorded so far.
+	 */
+	public static final class Builder {
+		private int[] starts;
+		private int count;
+
+		/** Starts an index whose first line starts at the given offset. */
+		public Builder(int offset) {
+			this(offset, 0);
+		}
+
+		private Builder(int offset, int capacity) {
+			this.starts = new int[Math.max(16, capacity)];
+			this.starts[count++] = offset;
+		}
+
+		/** Records that a line starts at the given offset, after all line starts recorded so far. */
+		public void addLineStart(int offset) {
+			assert offset > starts[count - 1];
+
+			if(count == starts.length)
+				starts = Arrays.copyOf(starts, count + (count >> 1));
+			starts[count++] = offset;
+		}
+
+		/**
+		 * Records the line starts after the line terminators among the characters [start, end) of
+		 * the given array, whose character at index {@code start} is at the given offset.
+		 */
+		public void scan(char[] chars, int start, int end, int offset) {
+			for(int i = start; i < end; ++i) {
+				char c = chars[i];
+				if(c > '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029')
+					continue;
+				if(c == '\r') {
+					if(i + 1 < end && chars[i + 1] == '\n')
+						++i;
+				} else if(c < '\n') {
+					continue;
+				}
+				addLineStart(offset + i - start + 1);
+			}
+		}
+
+		/** Returns the number of lines recorded so far. */
+		public int getLineCount() {
+			return count;
+		}
+
+		/** Returns the offset at which the last line recorded so far starts. */
+		public int getLastLineStart() {
+			return starts[count - 1];
+		}
+
+		/** Returns the index of the lines recorded so far. */
+		public LineIndex build() {
+			return new LineIndex(starts, count);
+		}
+	}
+
+	/** Returns the number of lines; an empty range still has one (empty) line. */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/** Returns the offset at which the given line starts. */
+	public int getLineStart(int line) {
+		if(line < 0 || line >= lineCount)
+			throw new IndexOutOfBoundsException("line " + line + ", line count " + lineCount);
+		return lineStarts[line];
+	}
+
+	/** Returns the line containing the character at the given offset. */
+	public int getLine(int offset) {
+		if(offset < lineStarts[0])
+			throw new IndexOutOfBoundsException("offset " + offset + " before start of range " + lineStarts[0]);
+		// the last line starting at or before the offset
+		int lo = 0, hi = lineCount - 1;
+		while(lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if(lineStarts[mid] <= offset)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/** Returns the column of the character at the given offset, counted in chars from the start of its line. */
+	public int getColumn(int offset) {
+		return offset - lineStarts[getLine(offset)];
+	}
+}
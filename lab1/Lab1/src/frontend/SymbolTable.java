@@ -0,0 +1,124 @@
+package frontend;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier and string literal lexemes. Every distinct lexeme is stored once, as a
+ * single {@link String} instance, and is given a dense integer id (0, 1, 2, ... in order of
+ * first occurrence), so that code working with names can compare them by identity and key
+ * its tables on ids instead of hashing strings over and over.
+ *
+ * Lexemes can be looked up straight from a range of a source buffer; no string is created
+ * unless the lexeme has not been seen before.
+ */
+public final class SymbolTable {
+	private static final int MIN_CAPACITY = 16;
+
+	/** The interned lexemes, indexed by id. */
+	private String[] names;
+
+	/** The hash code of each interned lexeme, indexed by id. */
+	private int[] hashes;
+
+	/** Open-addressing hash table of ids plus one; zero marks an empty slot. */
+	private int[] slots;
+
+	private int size;
+
+	public SymbolTable() {
+		this(MIN_CAPACITY);
+	}
+
+	/** Creates an empty symbol table with room for {@code capacity} lexemes before it has to grow. */
+	public SymbolTable(int capacity) {
+		capacity = Math.max(capacity, MIN_CAPACITY);
+		this.names = new String[capacity];
+		this.hashes = new int[capacity];
+		this.slots = new int[Integer.highestOneBit(capacity - 1) << 2];
+	}
+
+	/** Returns the id of the lexeme in the range [offset, offset+length) of the given buffer, interning it if necessary. */
+	public int intern(char[] source, int offset, int length) {
+		assert offset >= 0 && length >= 0 && offset + length <= source.length;
+
+		// same hash function as String.hashCode(), so both overloads agree
+		int hash = 0;
+		for(int i = offset; i < offset + length; ++i)
+			hash = 31 * hash + source[i];
+
+		int mask = slots.length - 1;
+		for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if(id < 0)
+				return add(new String(source, offset, length), hash, slot);
+			if(hashes[id] == hash && matches(names[id], source, offset, length))
+				return id;
+		}
+	}
+
+	/** Returns the id of the given lexeme, interning it if necessary. */
+	public int intern(String lexeme) {
+		int hash = lexeme.hashCode();
+		int mask = slots.length - 1;
+		for(int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if(id < 0)
+				return add(lexeme, hash, slot);
+			if(hashes[id] == hash && names[id].equals(lexeme))
+				return id;
+		}
+	}
+
+	/** Returns the interned lexeme with the given id. */
+	public String getName(int id) {
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("symbol " + id + ", size " + size);
+		return names[id];
+	}
+
+	/** Returns the number of distinct lexemes interned so far; all ids are below this number. */
+	public int size() {
+		return size;
+	}
+
+	private int add(String lexeme, int hash, int slot) {
+		if(size == names.length) {
+			names = Arrays.copyOf(names, size << 1);
+			hashes = Arrays.copyOf(hashes, size << 1);
+		}
+		int id = size++;
+		names[id] = lexeme;
+		hashes[id] = hash;
+		slots[slot] = id + 1;
+		// keep the table at most half full
+		if(size << 1 > slots.length)
+			rehash();
+		return id;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length << 1];
+		int mask = slots.length - 1;
+		for(int id = 0; id < size; ++id) {
+			int slot = mix(hashes[id]) & mask;
+			while(slots[slot] != 0)
+				slot = (slot + 1) & mask;
+			slots[slot] = id + 1;
+		}
+	}
+
+	/** Spreads the bits of String hash codes, whose low bits are poor for short identifiers. */
+	private static int mix(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(String name, char[] source, int offset, int length) {
+		if(name.length() != length)
+			return false;
+		for(int i = 0; i < length; ++i)
+			if(name.charAt(i) != source[offset + i])
+				return false;
+		return true;
+	}
+}
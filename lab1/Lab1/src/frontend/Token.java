@@ -10,43 +10,43 @@ public final class Token {
 	/** Token types are provided as an enum. */
 	public enum Type {
 		// keywords
-		BOOLEAN,
-		BREAK,
-		ELSE,
-		FALSE,
-		IF,
-		IMPORT,
-		INT,
-		MODULE,
-		PUBLIC,
-		RETURN,
-		TRUE,
-		TYPE,
-		VOID,
-		WHILE,
+		BOOLEAN("boolean"),
+		BREAK("break"),
+		ELSE("else"),
+		FALSE("false"),
+		IF("if"),
+		IMPORT("import"),
+		INT("int"),
+		MODULE("module"),
+		PUBLIC("public"),
+		RETURN("return"),
+		TRUE("true"),
+		TYPE("type"),
+		VOID("void"),
+		WHILE("while"),
 		
 		// punctuation symbols
-		COMMA,						/* , */
-		LBRACKET,					/* [ */
-		LCURLY,						/* { */
-		LPAREN,						/* ( */
-		RBRACKET,					/* ] */
-		RCURLY,						/* } */
-		RPAREN,						/* ) */
-		SEMICOLON,					/* ; */
+		COMMA(","),
+		LBRACKET("["),
+		LCURLY("{"),
+		LPAREN("("),
+		RBRACKET("]"),
+		RCURLY("}"),
+		RPAREN(")"),
+		SEMICOLON(";"),
 		
 		// operators
-		DIV,						/* / */
-		EQEQ,						/* == */
-		EQL,						/* = */
-		GEQ,						/* >= */
-		GT,							/* > */
-		LEQ,						/* <= */
-		LT,							/* < */
-		MINUS,						/* - */
-		NEQ,						/* != */
-		PLUS,						/* + */
-		TIMES,						/* * */
+		DIV("/"),
+		EQEQ("=="),
+		EQL("="),
+		GEQ(">="),
+		GT(">"),
+		LEQ("<="),
+		LT("<"),
+		MINUS("-"),
+		NEQ("!="),
+		PLUS("+"),
+		TIMES("*"),
 		
 		// identifier
 		ID,
@@ -56,12 +56,34 @@ public final class Token {
 		STRING_LITERAL,
 		
 		// special end-of-file token
-		EOF
+		EOF("");
+		
+		/** The lexeme shared by all tokens of this type, or {@code null} if it varies. */
+		private final String lexeme;
+		
+		private Type() {
+			this(null);
+		}
+		
+		private Type(String lexeme) {
+			this.lexeme = lexeme;
+		}
+		
+		/** Returns the fixed lexeme of this token type, or {@code null} for identifiers and literals. */
+		public String getFixedLexeme() {
+			return lexeme;
+		}
 	};
 	
 	private final Type type;
 	private final int line, column;
-	private final String lexeme;
+	
+	/** The lexeme; computed lazily from {@link #source} if the token was created from a source buffer. */
+	private String lexeme;
+	
+	/** The source buffer this token was lexed from, or {@code null} if the lexeme was given explicitly. */
+	private final char[] source;
+	private final int offset, length;
 	
 	public Token(Type type, int line, int column, String lexeme) {
 		assert type != null;
@@ -73,6 +95,67 @@ public final class Token {
 		this.line = line;
 		this.column = column;
 		this.lexeme = lexeme;
+		this.source = null;
+		this.offset = -1;
+		this.length = lexeme.length();
+	}
+	
+	/**
+	 * Creates a token whose lexeme is the range [offset, offset+length) of the given source buffer.
+	 * The buffer is not copied, and the lexeme string is only built when {@link #getLexeme()} is
+	 * first called, so the buffer must not be modified while the token is in use.
+	 */
+	public Token(Type type, int line, int column, char[] source, int offset, int length) {
+		this(type, line, column, source, offset, length, type.getFixedLexeme());
+	}
+	
+	/**
+	 * Creates a token whose lexeme is the range [offset, offset+length) of the given source buffer
+	 * and is already available as a string, such as a lexeme interned in a {@link SymbolTable}.
+	 */
+	public Token(Type type, int line, int column, char[] source, int offset, int length, String lexeme) {
+		assert type != null;
+		assert line >= 0;
+		assert column >= 0;
+		assert source != null;
+		assert offset >= 0 && length >= 0 && offset + length <= source.length;
+		assert lexeme == null || lexeme.length() == length;
+		
+		this.type = type;
+		this.line = line;
+		this.column = column;
+		this.lexeme = lexeme;
+		this.source = source;
+		this.offset = offset;
+		this.length = length;
+	}
+	
+	public Type getType() {
+		return type;
+	}
+	
+	public int getLine() {
+		return line;
+	}
+	
+	public int getColumn() {
+		return column;
+	}
+	
+	public String getLexeme() {
+		if(lexeme == null)
+			lexeme = new String(source, offset, length);
+		return lexeme;
+	}
+	
+	/** Returns the offset of the lexeme in the source buffer, or -1 if the token has no source buffer. */
+	public int getOffset() {
+		return offset;
+	}
+	
+	/** Returns the length of the lexeme. */
+	public int getLength() {
+		return length;
 	}
 	
 	public boolean isEOF() {
@@ -81,7 +164,7 @@ public final class Token {
 	
 	@Override
 	public String toString() {
-		return type + "@" + line + ":" + column + "='" + lexeme + "'";
+		return type + "@" + line + ":" + column + "='" + getLexeme() + "'";
 	}
 
 	@Override
@@ -89,7 +172,7 @@ public final class Token {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + column;
-		result = prime * result + lexeme.hashCode();
+		result = prime * result + getLexeme().hashCode();
 		result = prime * result + line;
 		return prime * result + type.hashCode();
 	}
@@ -101,7 +184,7 @@ public final class Token {
 			return this.type == that.type &&
 				   this.line == that.line &&
 				   this.column == that.column &&
-				   this.lexeme.equals(that.lexeme);
+				   this.getLexeme().equals(that.getLexeme());
 		} else {
 			return false;
 		}
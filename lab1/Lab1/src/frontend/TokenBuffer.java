@@ -0,0 +1,186 @@
+package frontend;
+
+import java.util.Arrays;
+
+/**
+ * A compact, growable sequence of tokens lexed from a single source buffer. Instead of one
+ * {@link Token} object per lexeme, the token type, line, column, offset and length of every
+ * token are stored in parallel int arrays; {@link Token} objects and lexeme strings are only
+ * created when they are asked for.
+ *
+ * Tokens can either be accessed by index, or consumed in order using a cursor
+ * ({@link #hasNext()}, {@link #next()}, {@link #rewind()}).
+ */
+public final class TokenBuffer {
+	private static final Token.Type[] TYPES = Token.Type.values();
+	private static final int MIN_CAPACITY = 16;
+
+	private final char[] source;
+	private int[] types, lines, columns, offsets, lengths;
+	private int size;
+	private int cursor;
+
+	/** If set, line and column numbers are computed from token offsets instead of being stored. */
+	private LineIndex lineIndex;
+
+	/** Creates an empty token buffer for tokens lexed from {@code source}. */
+	public TokenBuffer(char[] source) {
+		// on typical PL/3007 code a token takes about three characters, including whitespace
+		this(source, source.length / 3);
+	}
+
+	/** Creates an empty token buffer with room for {@code capacity} tokens before it has to grow. */
+	public TokenBuffer(char[] source, int capacity) {
+		assert source != null;
+
+		this.source = source;
+		capacity = Math.max(capacity, MIN_CAPACITY);
+		this.types = new int[capacity];
+		this.lines = new int[capacity];
+		this.columns = new int[capacity];
+		this.offsets = new int[capacity];
+		this.lengths = new int[capacity];
+	}
+
+	/** Returns the source buffer the tokens were lexed from. */
+	public char[] getSource() {
+		return source;
+	}
+
+	/**
+	 * Makes this buffer compute the line and column of every token from its offset using the
+	 * given index of the source buffer, ignoring the stored line and column numbers. This is
+	 * meant for tokens lexed by a lexer that does not keep track of positions.
+	 */
+	public void setLineIndex(LineIndex lineIndex) {
+		this.lineIndex = lineIndex;
+	}
+
+	/** Appends a token. */
+	public void add(Token.Type type, int line, int column, int offset, int length) {
+		assert offset >= 0 && length >= 0 && offset + length <= source.length;
+
+		if(size == types.length)
+			grow(size + 1);
+		types[size] = type.ordinal();
+		lines[size] = line;
+		columns[size] = column;
+		offsets[size] = offset;
+		lengths[size] = length;
+		++size;
+	}
+
+	/**
+	 * Appends the first {@code count} tokens of another buffer over the same source, moving
+	 * them down by {@code lineDelta} lines.
+	 */
+	public void append(TokenBuffer other, int count, int lineDelta) {
+		assert other.source == source;
+		assert count >= 0 && count <= other.size;
+
+		if(size + count > types.length)
+			grow(size + count);
+		System.arraycopy(other.types, 0, types, size, count);
+		System.arraycopy(other.columns, 0, columns, size, count);
+		System.arraycopy(other.offsets, 0, offsets, size, count);
+		System.arraycopy(other.lengths, 0, lengths, size, count);
+		for(int i = 0; i < count; ++i)
+			lines[size + i] = other.lines[i] + lineDelta;
+		size += count;
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = Math.max(minCapacity, types.length + (types.length >> 1));
+		types = Arrays.copyOf(types, capacity);
+		lines = Arrays.copyOf(lines, capacity);
+		columns = Arrays.copyOf(columns, capacity);
+		offsets = Arrays.copyOf(offsets, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+	}
+
+	/** Removes all tokens, keeping the allocated arrays. */
+	public void clear() {
+		size = cursor = 0;
+	}
+
+	/** Returns the number of tokens in the buffer. */
+	public int size() {
+		return size;
+	}
+
+	public Token.Type getType(int i) {
+		checkIndex(i);
+		return TYPES[types[i]];
+	}
+
+	public int getLine(int i) {
+		checkIndex(i);
+		return lineIndex != null ? lineIndex.getLine(start(i)) : lines[i];
+	}
+
+	public int getColumn(int i) {
+		checkIndex(i);
+		return lineIndex != null ? lineIndex.getColumn(start(i)) : columns[i];
+	}
+
+	/** Returns the offset where the text of the i-th token starts, including the opening quote of a string literal. */
+	private int start(int i) {
+		return TYPES[types[i]] == Token.Type.STRING_LITERAL ? offsets[i] - 1 : offsets[i];
+	}
+
+	public int getOffset(int i) {
+		checkIndex(i);
+		return offsets[i];
+	}
+
+	public int getLength(int i) {
+		checkIndex(i);
+		return lengths[i];
+	}
+
+	/** Returns the lexeme of the i-th token; only tokens without a fixed lexeme allocate a new string. */
+	public String getLexeme(int i) {
+		String lexeme = getType(i).getFixedLexeme();
+		return lexeme != null ? lexeme : new String(source, offsets[i], lengths[i]);
+	}
+
+	/**
+	 * Returns the id of the i-th token's lexeme in the given symbol table, interning it if
+	 * necessary; no string is created for lexemes the table already contains.
+	 */
+	public int getSymbol(int i, SymbolTable symbols) {
+		checkIndex(i);
+		return symbols.intern(source, offsets[i], lengths[i]);
+	}
+
+	/** Creates a {@link Token} object for the i-th token. */
+	public Token getToken(int i) {
+		return new Token(getType(i), getLine(i), getColumn(i), source, offsets[i], lengths[i]);
+	}
+
+	private void checkIndex(int i) {
+		if(i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("token index " + i + ", size " + size);
+	}
+
+	/** Returns {@code true} if the cursor has not yet consumed all tokens. */
+	public boolean hasNext() {
+		return cursor < size;
+	}
+
+	/** Returns the index of the token under the cursor and advances the cursor. */
+	public int next() {
+		checkIndex(cursor);
+		return cursor++;
+	}
+
+	/** Returns the index of the token under the cursor without advancing it. */
+	public int position() {
+		return cursor;
+	}
+
+	/** Moves the cursor back to the first token. */
+	public void rewind() {
+		cursor = 0;
+	}
+}
@@ -0,0 +1,284 @@
+package lexer;
+
+import static frontend.Token.Type.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import frontend.Token;
+
+/**
+ * A hand-written scanner that works directly on UTF-8 encoded input. Everything in the PL/3007
+ * token set except the contents of string literals is ASCII, so the input is only decoded inside
+ * string literals (and for error messages); everything else is matched byte by byte.
+ *
+ * The scanner returns exactly the same sequence of tokens (and throws the same errors) as the
+ * JFlex-generated {@link Lexer} reading the decoded input, including line and column numbers,
+ * which are counted in UTF-16 code units just as JFlex does.
+ *
+ * The input is read through a {@link ByteBuffer}, which may be a memory-mapped file (see
+ * {@link #open(Path)}); only the lexemes of identifiers and literals are copied out of it.
+ */
+public final class ByteLexer {
+	/** Keyword token types, indexed by the first letter of their lexeme. */
+	private static final Token.Type[][] KEYWORDS = new Token.Type[128][];
+	static {
+		for(Token.Type type : Token.Type.values()) {
+			String lexeme = type.getFixedLexeme();
+			if(lexeme != null && !lexeme.isEmpty() && Character.isLetter(lexeme.charAt(0))) {
+				Token.Type[] old = KEYWORDS[lexeme.charAt(0)];
+				Token.Type[] types = old == null ? new Token.Type[1] : java.util.Arrays.copyOf(old, old.length + 1);
+				types[types.length - 1] = type;
+				KEYWORDS[lexeme.charAt(0)] = types;
+			}
+		}
+	}
+
+	/** The input, read with absolute indices from its position to its limit. */
+	private final ByteBuffer input;
+	private final int end;
+
+	/** The array behind {@link #input} if it has one at offset 0, which is faster to read directly. */
+	private final byte[] array;
+
+	/** Current position in {@link #input}. */
+	private int pos;
+
+	/** Line and column of the current position. */
+	private int line, column;
+
+	public ByteLexer(byte[] input) {
+		this(input, 0, input.length);
+	}
+
+	/** Creates a scanner for the UTF-8 encoded range [offset, offset+length) of {@code input}. */
+	public ByteLexer(byte[] input, int offset, int length) {
+		this(ByteBuffer.wrap(input, offset, length));
+	}
+
+	/**
+	 * Creates a scanner for the UTF-8 encoded bytes between the position and the limit of the
+	 * given buffer. The buffer's position and limit are not changed, and its contents must not
+	 * be changed while the scanner is in use.
+	 */
+	public ByteLexer(ByteBuffer input) {
+		this.input = input;
+		this.array = input.hasArray() && input.arrayOffset() == 0 ? input.array() : null;
+		this.pos = input.position();
+		this.end = input.limit();
+	}
+
+	/**
+	 * Creates a scanner for the given UTF-8 encoded file. The file is memory-mapped and scanned
+	 * in place: nothing is read into the heap apart from the lexemes of identifiers and literals.
+	 */
+	public static ByteLexer open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file)) {
+			return open(channel);
+		}
+	}
+
+	/**
+	 * Creates a scanner for the UTF-8 encoded contents of the given channel, which is mapped
+	 * read-only; see {@link #open(Path)}. The mapping stays valid after the channel is closed.
+	 */
+	public static ByteLexer open(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if(size > Integer.MAX_VALUE)
+			throw new IOException("input too large to map: " + size + " bytes");
+		return new ByteLexer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+	}
+
+	/** Returns the next token; once the input is exhausted, returns EOF tokens. */
+	public Token nextToken() {
+		skipWhiteSpace();
+		if(pos == end)
+			return new Token(EOF, line, column, "");
+
+		int start = pos;
+		byte b = at(pos);
+		if(isLetter(b) || b == '_') {
+			do ++pos; while(pos < end && (isLetter(at(pos)) || isDigit(at(pos)) || at(pos) == '_'));
+			return identifierOrKeyword(start);
+		}
+		if(isDigit(b)) {
+			do ++pos; while(pos < end && isDigit(at(pos)));
+			return token(INT_LITERAL, start, ascii(start, pos - start));
+		}
+
+		switch(b) {
+		case ',': return fixed(COMMA, 1);
+		case '[': return fixed(LBRACKET, 1);
+		case '{': return fixed(LCURLY, 1);
+		case '(': return fixed(LPAREN, 1);
+		case ']': return fixed(RBRACKET, 1);
+		case '}': return fixed(RCURLY, 1);
+		case ')': return fixed(RPAREN, 1);
+		case ';': return fixed(SEMICOLON, 1);
+		case '/': return fixed(DIV, 1);
+		case '-': return fixed(MINUS, 1);
+		case '+': return fixed(PLUS, 1);
+		case '*': return fixed(TIMES, 1);
+		case '=': return followedByEq() ? fixed(EQEQ, 2) : fixed(EQL, 1);
+		case '>': return followedByEq() ? fixed(GEQ, 2) : fixed(GT, 1);
+		case '<': return followedByEq() ? fixed(LEQ, 2) : fixed(LT, 1);
+		case '!':
+			if(followedByEq())
+				return fixed(NEQ, 2);
+			break;
+		case '"':
+			Token literal = stringLiteral();
+			if(literal != null)
+				return literal;
+			break;
+		}
+		throw new LexerError("unexpected character '" + firstChar(start) + "'");
+	}
+
+	/** Skips white space, keeping track of line and column numbers. */
+	private void skipWhiteSpace() {
+		for(; pos < end; ++pos) {
+			switch(at(pos)) {
+			case ' ':
+			case '\t':
+				++column;
+				break;
+			case '\f':
+				newLine();
+				break;
+			case '\r':
+				newLine();
+				if(pos + 1 < end && at(pos + 1) == '\n')
+					++pos;
+				break;
+			case '\n':
+				newLine();
+				break;
+			default:
+				return;
+			}
+		}
+	}
+
+	private void newLine() {
+		++line;
+		column = 0;
+	}
+
+	private Token identifierOrKeyword(int start) {
+		int length = pos - start;
+		Token.Type[] candidates = KEYWORDS[at(start)];
+		if(candidates != null) {
+			outer: for(Token.Type type : candidates) {
+				String keyword = type.getFixedLexeme();
+				if(keyword.length() != length)
+					continue;
+				for(int i = 1; i < length; ++i)
+					if(at(start + i) != keyword.charAt(i))
+						continue outer;
+				return token(type, start, keyword);
+			}
+		}
+		return token(ID, start, ascii(start, length));
+	}
+
+	private boolean followedByEq() {
+		return pos + 1 < end && at(pos + 1) == '=';
+	}
+
+	/** Returns a token with a fixed lexeme of the given length starting at the current position. */
+	private Token fixed(Token.Type type, int length) {
+		int start = pos;
+		pos += length;
+		return token(type, start, type.getFixedLexeme());
+	}
+
+	/** Returns a token starting at {@code start} and ending at the current position. */
+	private Token token(Token.Type type, int start, String lexeme) {
+		Token token = new Token(type, line, column, lexeme);
+		column += pos - start;
+		return token;
+	}
+
+	/**
+	 * Scans a string literal starting at the current position, or returns {@code null} if it
+	 * is not terminated on the same line.
+	 */
+	private Token stringLiteral() {
+		int close = pos + 1;
+		while(close < end && at(close) != '"' && at(close) != '\r' && at(close) != '\n')
+			++close;
+		if(close == end || at(close) != '"')
+			return null;
+
+		int start = pos;
+		pos = close + 1;
+		boolean printable = true;
+		for(int i = start + 1; i < close; ++i)
+			if(at(i) < ' ') {
+				printable = false;
+				break;
+			}
+		if(printable)
+			return token(STRING_LITERAL, start, ascii(start + 1, close - start - 1));
+
+		// the literal contains non-ASCII or control characters: decode it, and count the position
+		// in UTF-16 code units, taking into account the line terminators JFlex recognises inside
+		// string literals
+		String lexeme = decode(start + 1, close - start - 1);
+		Token token = new Token(STRING_LITERAL, line, column, lexeme);
+		++column;
+		for(int i = 0; i < lexeme.length(); ++i) {
+			switch(lexeme.charAt(i)) {
+			case '\u000B':
+			case '\u000C':
+			case '\u0085':
+			case '\u2028':
+			case '\u2029':
+				newLine();
+				break;
+			default:
+				++column;
+			}
+		}
+		++column;
+		return token;
+	}
+
+	private byte at(int index) {
+		return array != null ? array[index] : input.get(index);
+	}
+
+	private String ascii(int offset, int length) {
+		if(array != null)
+			return new String(array, offset, length, StandardCharsets.ISO_8859_1);
+		char[] chars = new char[length];
+		for(int i = 0; i < length; ++i)
+			chars[i] = (char)input.get(offset + i);
+		return new String(chars);
+	}
+
+	/** Decodes the given range of the input, replacing malformed input like {@code new String} does. */
+	private String decode(int offset, int length) {
+		ByteBuffer bytes = input.duplicate();
+		bytes.limit(offset + length);
+		bytes.position(offset);
+		return StandardCharsets.UTF_8.decode(bytes).toString();
+	}
+
+	/** Decodes the UTF-16 code unit at the given position, for error messages. */
+	private char firstChar(int offset) {
+		return decode(offset, Math.min(4, end - offset)).charAt(0);
+	}
+
+	private static boolean isLetter(byte b) {
+		return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+}
@@ -0,0 +1,355 @@
+package lexer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import frontend.Token;
+
+/**
+ * Keeps the token list of an edited text up to date. After an edit, lexing restarts at the last
+ * token boundary before the edit and stops as soon as it produces a token that also existed
+ * before the edit at the same (shifted) position; the lexer has no state besides its position,
+ * so all following tokens are unchanged apart from their positions and are reused.
+ *
+ * The text is kept in a buffer with some spare room at the end, so most edits can be applied in
+ * place. The tokens are kept in runs (see {@link Run}) whose positions are only adjusted when a
+ * token is read, so the tokens after an edit are not touched by it. Tokens obtained before an
+ * edit must no longer be used after it; read them from the token list again.
+ */
+public final class IncrementalLexer {
+	/** The number of runs beyond which the two smallest neighbouring runs are merged. */
+	private static final int MAX_RUNS = 64;
+
+	private char[] buffer;
+	private int length;
+
+	/** The token list, or {@code null} if the text contains a lexical error. */
+	private List<Run> runs;
+	private int size;
+
+	/** The run last found by {@link #runAt(int)} and the index of its first token, for reading in order. */
+	private int lastRun, lastRunStart;
+
+	private final List<Token> tokens = new AbstractList<Token>() {
+		@Override
+		public Token get(int index) {
+			if(index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("token " + index + " of " + size);
+			Run run = runAt(index);
+			return run.get(index - lastRunStart, buffer);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	};
+
+	/**
+	 * Consecutive tokens of the token list, stored as they were lexed. An edit in front of a run
+	 * only adds to the run's pending shift, which is applied to a token when it is read. Runs
+	 * are split by edits, and the parts share their array, each using its own range of it.
+	 */
+	private static final class Run {
+		final Token[] tokens;
+		final int from, to;
+
+		/** The characters and lines by which the tokens have moved since they were stored. */
+		final int delta, lineDelta;
+
+		/** The buffer the tokens were stored for; tokens are exact if it is still the current one and the run has not moved. */
+		final char[] source;
+
+		Run(Token[] tokens, int from, int to, int delta, int lineDelta, char[] source) {
+			this.tokens = tokens;
+			this.from = from;
+			this.to = to;
+			this.delta = delta;
+			this.lineDelta = lineDelta;
+			this.source = source;
+		}
+
+		int size() {
+			return to - from;
+		}
+
+		/** Returns the tokens [start, end) of this run, moved by the given number of characters and lines. */
+		Run slice(int start, int end, int delta, int lineDelta) {
+			return new Run(tokens, from + start, from + end, this.delta + delta, this.lineDelta + lineDelta, source);
+		}
+
+		int getOffset(int i) {
+			return tokens[from + i].getOffset() + delta;
+		}
+
+		int getLine(int i) {
+			return tokens[from + i].getLine() + lineDelta;
+		}
+
+		/** Returns the i-th token of this run, at its current position in the given buffer. */
+		Token get(int i, char[] buffer) {
+			Token token = tokens[from + i];
+			if(delta == 0 && lineDelta == 0 && source == buffer)
+				return token;
+			return new Token(token.getType(), token.getLine() + lineDelta, token.getColumn(), buffer,
+					token.getOffset() + delta, token.getLength(), token.getType().getFixedLexeme());
+		}
+	}
+
+	public IncrementalLexer(CharSequence text) throws IOException {
+		this.buffer = new char[capacityFor(text.length())];
+		this.length = text.length();
+		for(int i = 0; i < length; ++i)
+			buffer[i] = text.charAt(i);
+		relexAll();
+	}
+
+	private static int capacityFor(int length) {
+		return Math.max(16, length + (length >> 2));
+	}
+
+	/** Returns the current text. */
+	public String getText() {
+		return new String(buffer, 0, length);
+	}
+
+	/**
+	 * Returns the tokens of the current text, ending with an EOF token. The returned list is a
+	 * read-only view that is updated by subsequent edits.
+	 *
+	 * @throws IllegalStateException if the current text contains a lexical error
+	 */
+	public List<Token> getTokens() {
+		if(runs == null)
+			throw new IllegalStateException("text contains a lexical error");
+		return tokens;
+	}
+
+	/**
+	 * Replaces {@code removed} characters at {@code offset} by {@code inserted} and updates the
+	 * token list. If the new text contains an unexpected character, the lexer's error is thrown;
+	 * the edit is still applied, but there is no token list until a later edit fixes the text.
+	 *
+	 * @return the number of tokens that had to be lexed again
+	 */
+	public int edit(int offset, int removed, CharSequence inserted) throws IOException {
+		if(offset < 0 || removed < 0 || offset + removed > length)
+			throw new IndexOutOfBoundsException("edit [" + offset + ", " + (offset + removed) + ") of " + length + " chars");
+
+		if(runs == null) {
+			replace(offset, removed, inserted);
+			return relexAll();
+		}
+
+		// the first token that may change is the first one reaching up to the edit (one
+		// character of lookahead is enough for PL/3007 tokens); lexing restarts at the token
+		// before it, so that any white space between the two is rescanned as well
+		int first = firstTokenEndingAtOrAfter(offset);
+		int restart = Math.max(first - 1, 0);
+		int restartOffset = 0, line = 0, column = 0;
+		if(first > 0) {
+			Token token = tokens.get(restart);
+			restartOffset = start(token);
+			line = token.getLine();
+			column = token.getColumn();
+		}
+
+		replace(offset, removed, inserted);
+		int delta = inserted.length() - removed;
+		int editEnd = offset + inserted.length();
+
+		List<Token> relexedTokens = new ArrayList<Token>();
+		Lexer lexer = new Lexer(buffer, restartOffset, length - restartOffset, line, column);
+		int old = first, relexed = 0;
+		Token token;
+		try {
+			while(true) {
+				token = lexer.nextToken();
+				++relexed;
+				if(token.isEOF())
+					break;
+				if(start(token) >= editEnd) {
+					// past the edit: look for the same token in the old token list, whose
+					// positions are still those from before the edit
+					int oldStart = start(token) - delta;
+					while(old < size && oldStart(old) < oldStart)
+						++old;
+					Token match = oldToken(old);
+					if(start(match) == oldStart && match.getType() == token.getType() && match.getLength() == token.getLength())
+						break;
+				}
+				relexedTokens.add(token);
+			}
+		} catch(Error e) {
+			runs = null;
+			throw e;
+		}
+
+		int lineDelta = 0;
+		if(token.isEOF()) {
+			relexedTokens.add(token);
+			old = size;
+		} else {
+			// the tokens on the line of the match may also have moved to another column; they
+			// are moved now, and only the tokens on the following lines are left as they are
+			Token match = oldToken(old);
+			lineDelta = token.getLine() - match.getLine();
+			int columnDelta = token.getColumn() - match.getColumn();
+			if(columnDelta != 0) {
+				relexedTokens.add(token);
+				for(++old; old < size && oldLine(old) == match.getLine(); ++old) {
+					Token moved = oldToken(old);
+					relexedTokens.add(new Token(moved.getType(), moved.getLine() + lineDelta, moved.getColumn() + columnDelta, buffer,
+							moved.getOffset() + delta, moved.getLength(), moved.getType().getFixedLexeme()));
+				}
+			}
+		}
+		splice(restart, old, relexedTokens, delta, lineDelta);
+		return relexed;
+	}
+
+	/** Lexes the whole text from scratch. */
+	private int relexAll() throws IOException {
+		List<Token> result = new ArrayList<Token>();
+		Lexer lexer = new Lexer(buffer, 0, length);
+		Token token;
+		try {
+			do {
+				token = lexer.nextToken();
+				result.add(token);
+			} while(!token.isEOF());
+		} catch(Error e) {
+			runs = null;
+			throw e;
+		}
+		runs = new ArrayList<Run>();
+		runs.add(new Run(result.toArray(new Token[result.size()]), 0, result.size(), 0, 0, buffer));
+		size = result.size();
+		lastRun = lastRunStart = 0;
+		return result.size();
+	}
+
+	/**
+	 * Replaces the tokens [start, end) by the given ones, which are at their final positions,
+	 * and moves the tokens after them by the given number of characters and lines.
+	 */
+	private void splice(int start, int end, List<Token> inserted, int delta, int lineDelta) {
+		List<Run> result = new ArrayList<Run>(runs.size() + 2);
+		int index = 0;
+		for(Run run : runs) {
+			if(index < start)
+				result.add(run.slice(0, Math.min(run.size(), start - index), 0, 0));
+			index += run.size();
+		}
+		if(!inserted.isEmpty())
+			result.add(new Run(inserted.toArray(new Token[inserted.size()]), 0, inserted.size(), 0, 0, buffer));
+		index = 0;
+		for(Run run : runs) {
+			if(index + run.size() > end)
+				result.add(run.slice(Math.max(end - index, 0), run.size(), delta, lineDelta));
+			index += run.size();
+		}
+		runs = result;
+		size += inserted.size() - (end - start);
+		while(runs.size() > MAX_RUNS)
+			mergeSmallestRuns();
+		lastRun = lastRunStart = 0;
+	}
+
+	/** Merges the two neighbouring runs with the fewest tokens into one whose tokens are exact. */
+	private void mergeSmallestRuns() {
+		int smallest = 0;
+		for(int i = 1; i + 1 < runs.size(); ++i)
+			if(runs.get(i).size() + runs.get(i + 1).size() < runs.get(smallest).size() + runs.get(smallest + 1).size())
+				smallest = i;
+		Run head = runs.get(smallest), tail = runs.get(smallest + 1);
+		Token[] merged = new Token[head.size() + tail.size()];
+		for(int i = 0; i < head.size(); ++i)
+			merged[i] = head.get(i, buffer);
+		for(int i = 0; i < tail.size(); ++i)
+			merged[head.size() + i] = tail.get(i, buffer);
+		runs.set(smallest, new Run(merged, 0, merged.length, 0, 0, buffer));
+		runs.remove(smallest + 1);
+	}
+
+	/** Returns the run containing the given token, and sets {@link #lastRunStart} to the index of its first token. */
+	private Run runAt(int index) {
+		if(index < lastRunStart) {
+			lastRun = lastRunStart = 0;
+		}
+		while(index >= lastRunStart + runs.get(lastRun).size()) {
+			lastRunStart += runs.get(lastRun).size();
+			++lastRun;
+		}
+		return runs.get(lastRun);
+	}
+
+	/* The positions of the old tokens during an edit, before the tokens after it are moved. */
+
+	private Token oldToken(int index) {
+		Run run = runAt(index);
+		return run.get(index - lastRunStart, buffer);
+	}
+
+	private int oldStart(int index) {
+		Run run = runAt(index);
+		int i = index - lastRunStart;
+		return run.tokens[run.from + i].getType() == Token.Type.STRING_LITERAL ? run.getOffset(i) - 1 : run.getOffset(i);
+	}
+
+	private int oldLine(int index) {
+		Run run = runAt(index);
+		return run.getLine(index - lastRunStart);
+	}
+
+	/** Applies an edit to the text, growing the buffer if necessary. */
+	private void replace(int offset, int removed, CharSequence inserted) {
+		int newLength = length - removed + inserted.length();
+		int tail = offset + removed;
+		if(newLength > buffer.length) {
+			char[] newBuffer = new char[capacityFor(newLength)];
+			System.arraycopy(buffer, 0, newBuffer, 0, offset);
+			System.arraycopy(buffer, tail, newBuffer, offset + inserted.length(), length - tail);
+			buffer = newBuffer;
+		} else {
+			System.arraycopy(buffer, tail, buffer, offset + inserted.length(), length - tail);
+		}
+		for(int i = 0; i < inserted.length(); ++i)
+			buffer[offset + i] = inserted.charAt(i);
+		length = newLength;
+	}
+
+	/** Returns the index of the first token whose text ends at or after the given offset. */
+	private int firstTokenEndingAtOrAfter(int offset) {
+		int index = 0;
+		for(Run run : runs) {
+			if(end(run, run.size() - 1) >= offset) {
+				int lo = 0, hi = run.size() - 1;
+				while(lo < hi) {
+					int mid = (lo + hi) >>> 1;
+					if(end(run, mid) < offset)
+						lo = mid + 1;
+					else
+						hi = mid;
+				}
+				return index + lo;
+			}
+			index += run.size();
+		}
+		return size - 1;
+	}
+
+	/* The lexeme of a string literal does not include its quotes, but its text does. */
+
+	private static int start(Token token) {
+		return token.getType() == Token.Type.STRING_LITERAL ? token.getOffset() - 1 : token.getOffset();
+	}
+
+	private static int end(Run run, int i) {
+		Token token = run.tokens[run.from + i];
+		int end = run.getOffset(i) + token.getLength();
+		return token.getType() == Token.Type.STRING_LITERAL ? end + 1 : end;
+	}
+}
@@ -0,0 +1,15 @@
+package lexer;
+
+/**
+ * Thrown by the lexers at the first lexical error in their input, unless they were told to
+ * record lexical errors instead (see {@link Lexer#setErrorList(java.util.List)}). It is an
+ * {@link Error}, like the errors the lexers have always thrown, so code catching those is
+ * unaffected; code that has to tell lexical errors from other errors can catch this one.
+ */
+public class LexerError extends Error {
+	private static final long serialVersionUID = 1L;
+
+	public LexerError(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,148 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import frontend.Token;
+import frontend.TokenBuffer;
+
+/**
+ * Lexes large source buffers on a fork-join pool. The input is split into chunks at newlines;
+ * since no token can contain a newline (string literals must be closed on the same line), each
+ * chunk can be lexed by its own {@link Lexer}. The chunks' tokens are then stitched together,
+ * shifting their line numbers, so the result is identical to lexing the whole buffer with a
+ * single {@link Lexer}.
+ */
+public final class ParallelLexer {
+	/** Chunks smaller than this are not worth lexing on their own. */
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 20;
+
+	private final ForkJoinPool pool;
+	private final int minChunkSize;
+
+	public ParallelLexer(ForkJoinPool pool) {
+		this(pool, DEFAULT_MIN_CHUNK_SIZE);
+	}
+
+	public ParallelLexer(ForkJoinPool pool, int minChunkSize) {
+		assert minChunkSize > 0;
+
+		this.pool = pool;
+		this.minChunkSize = minChunkSize;
+	}
+
+	/** Lexing task for a single chunk. */
+	private static final class Chunk extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final char[] source;
+		private final int offset, length;
+		private TokenBuffer tokens;
+		private IOException ioException;
+		private LexerError error;
+
+		Chunk(char[] source, int offset, int length) {
+			this.source = source;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		protected void compute() {
+			tokens = new TokenBuffer(source, length / 3);
+			try {
+				new Lexer(source, offset, length).tokenize(tokens);
+			} catch(IOException e) {
+				ioException = e;
+			} catch(LexerError e) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * Lexes the given source buffer into a new {@link TokenBuffer}. If the input contains an
+	 * unexpected character, throws the same {@link LexerError} as the sequential lexer; any
+	 * other error in a worker, such as running out of memory, is rethrown as it is.
+	 */
+	public TokenBuffer lex(char[] source) throws IOException {
+		List<Chunk> chunks = split(source);
+		if(chunks.size() == 1)
+			chunks.get(0).compute();
+		else
+			invokeAll(chunks);
+
+		// report the first problem in source order, which is the one the sequential lexer
+		// would have run into
+		int size = 0;
+		for(Chunk chunk : chunks) {
+			if(chunk.ioException != null)
+				throw chunk.ioException;
+			if(chunk.error != null)
+				throw chunk.error;
+			size += chunk.tokens.size();
+		}
+		if(chunks.size() == 1)
+			return chunks.get(0).tokens;
+
+		// all but the last chunk end with a newline, so their EOF token is at column 0 of the
+		// line where the next chunk starts
+		TokenBuffer result = new TokenBuffer(source, size);
+		int line = 0;
+		for(int i = 0; i < chunks.size(); ++i) {
+			TokenBuffer tokens = chunks.get(i).tokens;
+			int eof = tokens.size() - 1;
+			assert tokens.getType(eof) == Token.Type.EOF;
+			result.append(tokens, i == chunks.size() - 1 ? eof + 1 : eof, line);
+			line += tokens.getLine(eof);
+		}
+		return result;
+	}
+
+	private void invokeAll(final List<Chunk> chunks) throws IOException {
+		try {
+			pool.submit(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					ForkJoinTask.invokeAll(chunks);
+				}
+			}).get();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof Error)
+				throw (Error)e.getCause();
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException)e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/** Splits the source buffer into chunks of about equal size that end with a newline. */
+	private List<Chunk> split(char[] source) {
+		// a few chunks per worker even out differences in lexing speed; with a single worker,
+		// splitting only adds the cost of stitching
+		int parallelism = pool.getParallelism();
+		int count = parallelism == 1 ? 1 : Math.max(1, Math.min(source.length / minChunkSize, 4 * parallelism));
+		int target = source.length / count;
+		List<Chunk> chunks = new ArrayList<Chunk>(count);
+		int start = 0;
+		while(start < source.length) {
+			int end = Math.min(start + target, source.length);
+			while(end < source.length && source[end - 1] != '\n')
+				++end;
+			chunks.add(new Chunk(source, start, end - start));
+			start = end;
+		}
+		if(chunks.isEmpty())
+			chunks.add(new Chunk(source, 0, 0));
+		return chunks;
+	}
+}
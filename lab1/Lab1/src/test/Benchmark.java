@@ -0,0 +1,105 @@
+package test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The harness of the benchmarks in this package. A benchmark runs its measured code
+ * {@link #getWarmup()} times to warm up the JIT, without measuring it, and then
+ * {@link #getRuns()} times, and reports the times of every measurement; their median and
+ * minimum are printed as soon as they are reported. If the system property
+ * {@code benchmark.json} names a file, {@link #finish()} also writes all measurements to it as
+ * JSON, each with the setup it was made in, so that runs can be compared with each other.
+ */
+public final class Benchmark {
+	private final String name;
+	private final int warmup, runs;
+	private String setup = "";
+	private final List<String> results = new ArrayList<String>();
+
+	public Benchmark(String name, int warmup, int runs) {
+		this.name = name;
+		this.warmup = warmup;
+		this.runs = runs;
+	}
+
+	public int getWarmup() {
+		return warmup;
+	}
+
+	public int getRuns() {
+		return runs;
+	}
+
+	/** Prints what the following measurements are made on, and records it with them. */
+	public void setup(String format, Object... args) {
+		setup = String.format(format, args);
+		System.out.println(setup);
+	}
+
+	/** Reports the times of a measurement, in nanoseconds. */
+	public void report(String what, long[] nanos) {
+		long[] sorted = sorted(nanos);
+		System.out.printf("%s: median %.1f ms, min %.1f ms (%d runs)%n", what,
+				sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, sorted.length);
+		record(what, sorted);
+	}
+
+	/** Reports a measurement that could not be made. */
+	public void skip(String what, String reason) {
+		System.out.printf("%s: skipped, %s%n", what, reason);
+		results.add(String.format(Locale.ROOT, "{\"setup\": %s, \"measurement\": %s, \"skipped\": %s}", quote(setup), quote(what), quote(reason)));
+	}
+
+	private void record(String what, long[] sorted) {
+		results.add(String.format(Locale.ROOT, "{\"setup\": %s, \"measurement\": %s, \"runs\": %d, \"medianNanos\": %d, \"minNanos\": %d}",
+				quote(setup), quote(what), sorted.length, sorted[sorted.length / 2], sorted[0]));
+	}
+
+	/** Writes all measurements to the file named by the system property {@code benchmark.json}, if it is set. */
+	public void finish() throws IOException {
+		String output = System.getProperty("benchmark.json");
+		if(output == null)
+			return;
+		StringBuilder json = new StringBuilder();
+		json.append("{\"benchmark\": ").append(quote(name)).append(", \"java\": ").append(quote(System.getProperty("java.version")))
+			.append(", \"warmup\": ").append(warmup).append(",\n \"results\": [\n  ");
+		for(int i = 0; i < results.size(); ++i)
+			json.append(i == 0 ? "" : ",\n  ").append(results.get(i));
+		json.append("\n ]\n}\n");
+		write(output, json.toString());
+	}
+
+	private static void write(String output, String text) throws IOException {
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			writer.write(text);
+		}
+	}
+
+	private static long[] sorted(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	private static String quote(String text) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for(int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			if(c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if(c < ' ')
+				quoted.append(String.format(Locale.ROOT, "\\u%04x", (int)c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -4,13 +4,28 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import lexer.ByteLexer;
+import lexer.IncrementalLexer;
 import lexer.Lexer;
+import lexer.LexerError;
+import lexer.OffsetLexer;
+import lexer.ParallelLexer;
 
 import org.junit.Test;
 
+import frontend.LexicalError;
+import frontend.LineIndex;
+import frontend.SymbolTable;
 import frontend.Token;
+import frontend.TokenBuffer;
 import frontend.Token.Type;
 import static frontend.Token.Type.*;
 
@@ -314,4 +329,346 @@ public class LexerTests {
 				new Token(INT_LITERAL, 0, 2, "10"),
 				new Token(EOF, 0, 4, ""));
 	}
+	
+	@Test
+	public void testSourceBufferTokens() throws IOException {
+		String input = "module M { public int f(int x) { return x + 42; } type t = \"java.lang.String\"; }";
+		Lexer readerLexer = new Lexer(new StringReader(input));
+		Lexer bufferLexer = new Lexer(input.toCharArray());
+		Token expected, actual;
+		do {
+			expected = readerLexer.nextToken();
+			actual = bufferLexer.nextToken();
+			assertEquals(expected, actual);
+			assertEquals(expected.getLexeme(), input.substring(actual.getOffset(), actual.getOffset() + actual.getLength()));
+		} while(!expected.isEOF());
+		
+		// the lexer scans the caller's array, which a reset would overwrite
+		try {
+			bufferLexer.yyreset(new StringReader(input));
+			fail("a lexer scanning a source array must not be reset");
+		} catch(IllegalStateException e) {
+		}
+	}
+	
+	@Test
+	public void testTokenBuffer() throws IOException {
+		String input = "module M {\n  int[] a;\n  void f() { a = [1, 2]; println(\"x\"); }\n}";
+		char[] source = input.toCharArray();
+		TokenBuffer buffer = new TokenBuffer(source, 1);
+		new Lexer(source).tokenize(buffer);
+		
+		Lexer lexer = new Lexer(new StringReader(input));
+		Token expected;
+		do {
+			assertTrue(buffer.hasNext());
+			int i = buffer.next();
+			expected = lexer.nextToken();
+			assertEquals(expected, buffer.getToken(i));
+			assertEquals(expected.getLexeme(), buffer.getLexeme(i));
+		} while(!expected.isEOF());
+		assertFalse(buffer.hasNext());
+	}
+	
+	@Test
+	public void testBatchedTokens() throws IOException {
+		char[] source = "module M {\n  int[] a;\n  void f() { a = [1, 2]; println(\"x\"); }\n}".toCharArray();
+		TokenBuffer expected = new TokenBuffer(source);
+		new Lexer(source).tokenize(expected);
+		
+		TokenBuffer actual = new TokenBuffer(source);
+		Lexer lexer = new Lexer(source);
+		int batches = 0;
+		while(lexer.nextTokens(actual, 3) == 3)
+			++batches;
+		assertEquals((expected.size() - 1) / 3, batches);
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); ++i)
+			assertEquals(expected.getToken(i), actual.getToken(i));
+		
+		// once the input is exhausted, every batch is a single EOF token
+		assertEquals(1, lexer.nextTokens(actual, 3));
+		assertEquals(EOF, actual.getType(actual.size() - 1));
+	}
+	
+	@Test
+	public void testErrorRecovery() throws IOException {
+		String input = "module M { int x# ; \"abc\n  int $y; \"\n}";
+		List<LexicalError> errors = new ArrayList<LexicalError>();
+		Lexer lexer = new Lexer(new StringReader(input));
+		lexer.setErrorList(errors);
+		Type[] expected = { MODULE, ID, LCURLY, INT, ID, SEMICOLON, INT, ID, SEMICOLON, RCURLY, EOF };
+		for(Type type : expected)
+			assertEquals(type, lexer.nextToken().getType());
+		
+		assertEquals(4, errors.size());
+		assertEquals("0:16: unexpected character '#'", errors.get(0).toString());
+		assertEquals("0:20: unterminated string literal", errors.get(1).toString());
+		assertEquals(4, errors.get(1).getLength());
+		assertEquals("1:6: unexpected character '$'", errors.get(2).toString());
+		assertEquals("1:10: unterminated string literal", errors.get(3).toString());
+		assertEquals(input.indexOf('$'), errors.get(2).getOffset());
+		
+		// without an error list, the first error is thrown
+		Lexer throwing = new Lexer(input.toCharArray());
+		try {
+			while(!throwing.nextToken().isEOF());
+			fail();
+		} catch(Error e) {
+			assertEquals("unexpected character '#'", e.getMessage());
+		}
+		try {
+			new Lexer("\"abc".toCharArray()).nextToken();
+			fail();
+		} catch(Error e) {
+			assertEquals("unexpected character '\"'", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSymbolTable() throws IOException {
+		String input = "module M {\n  int x;\n  void f() { x = x + y; println(\"x\"); println(\"x\"); }\n}";
+		char[] source = input.toCharArray();
+		SymbolTable symbols = new SymbolTable();
+		Lexer sourceLexer = new Lexer(source);
+		sourceLexer.setSymbolTable(symbols);
+		Lexer readerLexer = new Lexer(new StringReader(input));
+		readerLexer.setSymbolTable(symbols);
+		HashMap<String, String> seen = new HashMap<String, String>();
+		Token expected;
+		do {
+			expected = readerLexer.nextToken();
+			Token actual = sourceLexer.nextToken();
+			assertEquals(expected, actual);
+			if(expected.getType() == ID || expected.getType() == STRING_LITERAL) {
+				// every occurrence of a lexeme, from either lexer, is the same string instance
+				assertSame(expected.getLexeme(), actual.getLexeme());
+				if(seen.containsKey(expected.getLexeme()))
+					assertSame(seen.get(expected.getLexeme()), expected.getLexeme());
+				seen.put(expected.getLexeme(), expected.getLexeme());
+			}
+		} while(!expected.isEOF());
+		// M, x, f, y, println and the string literal "x", which has the same lexeme as x
+		assertEquals(5, symbols.size());
+		
+		TokenBuffer buffer = new TokenBuffer(source);
+		new Lexer(source).tokenize(buffer);
+		for(int i = 0; i < buffer.size(); ++i)
+			if(buffer.getType(i) == ID)
+				assertSame(symbols.getName(buffer.getSymbol(i, symbols)), symbols.getName(symbols.intern(buffer.getLexeme(i))));
+		assertEquals(5, symbols.size());
+		
+		// ids are dense and stay valid as the table grows
+		for(int i = 0; i < 1000; ++i)
+			assertEquals(5 + i, symbols.intern("v" + i));
+		for(int i = 0; i < 1000; ++i)
+			assertEquals("v" + i, symbols.getName(symbols.intern(("v" + i).toCharArray(), 0, ("v" + i).length())));
+		assertEquals(1005, symbols.size());
+	}
+	
+	@Test
+	public void testOffsetLexer() throws IOException {
+		String input = "module M {\r\n  int x;\r  type t = \"a\u2028b\u000Bc\";\f\n\n\tvoid f() { x = 1; }\n}\n";
+		char[] source = input.toCharArray();
+		TokenBuffer buffer = new TokenBuffer(source);
+		OffsetLexer offsetLexer = new OffsetLexer(source);
+		offsetLexer.tokenize(buffer);
+		
+		// the offset lexer records the line starts while scanning, and its tokens carry the
+		// same positions as those of the lexer counting them
+		LineIndex recorded = offsetLexer.getLineIndex();
+		LineIndex index = new LineIndex(source);
+		assertEquals(index.getLineCount(), recorded.getLineCount());
+		for(int line = 0; line < index.getLineCount(); ++line)
+			assertEquals(index.getLineStart(line), recorded.getLineStart(line));
+		
+		// positions can also be taken from a line index
+		TokenBuffer indexed = new TokenBuffer(source);
+		new OffsetLexer(source).tokenize(indexed);
+		indexed.setLineIndex(index);
+		
+		Lexer lexer = new Lexer(source);
+		OffsetLexer tokenLexer = new OffsetLexer(new StringReader(input));
+		for(int i = 0; i < buffer.size(); ++i) {
+			Token expected = lexer.nextToken();
+			assertEquals(expected, buffer.getToken(i));
+			assertEquals(expected.getOffset(), buffer.getOffset(i));
+			assertEquals(expected, indexed.getToken(i));
+			assertEquals(expected, tokenLexer.nextToken());
+		}
+		assertTrue(lexer.nextToken().isEOF());
+		
+		// a reset starts over with the line starts of the new input
+		String next = "x\n  y = \"a\u2028b\";\r\nz";
+		tokenLexer.yyreset(new StringReader(next));
+		Lexer nextLexer = new Lexer(new StringReader(next));
+		Token nextToken;
+		do {
+			nextToken = nextLexer.nextToken();
+			assertEquals(nextToken, tokenLexer.nextToken());
+		} while(!nextToken.isEOF());
+		assertEquals(4, tokenLexer.getLineIndex().getLineCount());
+		
+		// so do lexical errors
+		List<LexicalError> expectedErrors = new ArrayList<LexicalError>(), errors = new ArrayList<LexicalError>();
+		String invalid = "x\n  \u2028 #\n\"a\u2029b";
+		Lexer errorLexer = new Lexer(new StringReader(invalid));
+		errorLexer.setErrorList(expectedErrors);
+		OffsetLexer offsetErrorLexer = new OffsetLexer(new StringReader(invalid));
+		offsetErrorLexer.setErrorList(errors);
+		Token expected;
+		do {
+			expected = errorLexer.nextToken();
+			assertEquals(expected, offsetErrorLexer.nextToken());
+		} while(!expected.isEOF());
+		assertEquals(expectedErrors.toString(), errors.toString());
+		
+		index = new LineIndex(source, 0, 0);
+		assertEquals(1, index.getLineCount());
+		assertEquals(0, index.getColumn(0));
+	}
+	
+	@Test
+	public void testMappedFile() throws IOException {
+		String input = "module M {\r\n  type t = \"caf\u00e9\";\n  int x; }";
+		Path file = Files.createTempFile("lexer", ".pl3007");
+		try {
+			Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+			ByteLexer fileLexer = ByteLexer.open(file);
+			Lexer readerLexer = new Lexer(new StringReader(input));
+			Token expected;
+			do {
+				expected = readerLexer.nextToken();
+				assertEquals(expected, fileLexer.nextToken());
+			} while(!expected.isEOF());
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	// helper method checking that ByteLexer agrees with the JFlex lexer on the given input
+	private void runByteLexerTest(String input) throws IOException {
+		Lexer lexer = new Lexer(input.toCharArray());
+		ByteLexer byteLexer = new ByteLexer(input.getBytes(StandardCharsets.UTF_8));
+		Token expected;
+		do {
+			try {
+				expected = lexer.nextToken();
+			} catch(Error e) {
+				try {
+					byteLexer.nextToken();
+					fail("expected error " + e.getMessage());
+				} catch(Error f) {
+					assertEquals(e.getMessage(), f.getMessage());
+				}
+				return;
+			}
+			assertEquals(expected, byteLexer.nextToken());
+		} while(!expected.isEOF());
+	}
+	
+	@Test
+	public void testByteLexer() throws IOException {
+		runByteLexerTest("module Test {\r\n\tpublic boolean f(int[] a) {\n\t\treturn a[0] >= 10 != false;\n\t}\n}\n");
+		runByteLexerTest("if(x<=y){x=y-1;}else{y=x*2/3+4;}");
+		runByteLexerTest("type t = \"caf\u00e9 \ud83d\ude00\"; x");
+		runByteLexerTest("\"a\u2028b\" c\f\"\u000B\" d");
+		runByteLexerTest("x = \"unterminated\n\"");
+		runByteLexerTest("a ! b");
+		runByteLexerTest("caf\u00e9");
+	}
+	
+	@Test
+	public void testParallelLexer() throws IOException {
+		StringBuilder input = new StringBuilder("module M {\n");
+		for(int i = 0; i < 200; ++i)
+			input.append("  int f" + i + "() {\r\n    return \"" + i + "\" + " + i + ";\n  }\f\n");
+		input.append("}");
+		char[] source = input.toString().toCharArray();
+		
+		TokenBuffer expected = new TokenBuffer(source);
+		new Lexer(source).tokenize(expected);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			TokenBuffer actual = new ParallelLexer(pool, 64).lex(source);
+			assertEquals(expected.size(), actual.size());
+			for(int i = 0; i < expected.size(); ++i) {
+				assertEquals(expected.getToken(i), actual.getToken(i));
+				assertEquals(expected.getOffset(i), actual.getOffset(i));
+			}
+			
+			// a lexical error in a later chunk is the lexer's own error
+			source[input.lastIndexOf("return")] = '#';
+			try {
+				new ParallelLexer(pool, 64).lex(source);
+				fail();
+			} catch(LexerError e) {
+				assertEquals("unexpected character '#'", e.getMessage());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	private static void assertRelexed(IncrementalLexer lexer) throws IOException {
+		char[] source = lexer.getText().toCharArray();
+		Lexer full = new Lexer(source);
+		List<Token> tokens = lexer.getTokens();
+		for(int i = 0; i < tokens.size(); ++i) {
+			Token expected = full.nextToken();
+			assertEquals(expected, tokens.get(i));
+			assertEquals(expected.getOffset(), tokens.get(i).getOffset());
+		}
+		assertTrue(tokens.get(tokens.size() - 1).isEOF());
+	}
+	
+	@Test
+	public void testIncrementalLexer() throws IOException {
+		StringBuilder input = new StringBuilder("module M {\n");
+		for(int i = 0; i < 100; ++i)
+			input.append("  int f" + i + "() {\n    return \"" + i + "\" + " + i + ";\n  }\n");
+		input.append("}");
+		IncrementalLexer lexer = new IncrementalLexer(input);
+		assertRelexed(lexer);
+		
+		// renaming an identifier only relexes the tokens around it
+		int offset = lexer.getText().indexOf("f42");
+		assertTrue(lexer.edit(offset, 3, "fortyTwo") < 5);
+		assertRelexed(lexer);
+		
+		// so does inserting a line break, even though it moves all following tokens
+		offset = lexer.getText().indexOf("return \"7\"");
+		assertTrue(lexer.edit(offset, 0, "\n\t") < 5);
+		assertRelexed(lexer);
+		
+		// splitting a string literal in two
+		offset = lexer.getText().indexOf("\"13\"") + 2;
+		assertTrue(lexer.edit(offset, 0, "\" + \"") < 8);
+		assertRelexed(lexer);
+		
+		// a lexical error leaves no token list until the text is fixed
+		offset = lexer.getText().indexOf("int f50");
+		try {
+			lexer.edit(offset, 0, "#");
+			fail();
+		} catch(Error e) {
+		}
+		try {
+			lexer.getTokens();
+			fail();
+		} catch(IllegalStateException e) {
+		}
+		lexer.edit(offset, 1, "");
+		assertRelexed(lexer);
+		
+		// appending at the end, growing the buffer
+		lexer.edit(lexer.getText().length(), 0, input);
+		assertRelexed(lexer);
+		
+		// edits all over the text, each moving the tokens after it
+		for(int i = 0; i < 200; ++i) {
+			offset = lexer.getText().indexOf("return", i * 97 % lexer.getText().length());
+			lexer.edit(offset < 0 ? 0 : offset, 0, i % 3 == 0 ? "\n" : " ");
+		}
+		assertRelexed(lexer);
+	}
 }
@@ -0,0 +1,121 @@
+package test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lexer.ByteLexer;
+import lexer.Lexer;
+
+/**
+ * Compares lexing a file through a {@link BufferedReader}, the way a {@link Lexer} is usually
+ * created, with {@link ByteLexer#open(Path)}, which maps the file and scans the mapped bytes in
+ * place, and with a {@link ByteLexer} over the file read into a byte array. Each measurement
+ * takes a fresh lexer from opening the file to the EOF token; the file is a generated module
+ * repeated up to the given size.
+ *
+ * Run with the file sizes in megabytes (default 1, 16, 128 and 1024); the system property
+ * {@code runs} sets the number of measured runs (default 5), after one run that warms up the JIT
+ * and is not measured. The byte array takes as much heap as the file, so it is skipped for sizes
+ * that do not fit the maximum heap size; the other two only keep one buffer in memory.
+ */
+public class MappedFileBenchmark {
+	private static final String MODULE = "module M%d {\n"
+			+ "\timport lib;\n"
+			+ "\tpublic int count;\n"
+			+ "\tpublic boolean[] flags;\n"
+			+ "\tint f(int x, int y) {\n"
+			+ "\t\twhile(x >= 0) { x = x - 1; y = (y * 3 + x) / 2; }\n"
+			+ "\t\tif(y != 42) return count; else { print(\"done with f\"); return -x; }\n"
+			+ "\t}\n"
+			+ "}\n";
+
+	public static void main(String[] args) throws IOException {
+		int[] sizes = { 1, 16, 128, 1024 };
+		if(args.length > 0) {
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; ++i)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+		int runs = Integer.getInteger("runs", 5);
+		Benchmark benchmark = new Benchmark("mapped file", 1, runs);
+
+		for(int size : sizes) {
+			Path file = Files.createTempFile("lexer", ".pl3007");
+			try {
+				long tokens = generate(file, size * 1024L * 1024L);
+				benchmark.setup("%d MB, %d tokens", size, tokens);
+				long[] read = new long[runs], mapped = new long[runs], array = new long[runs];
+				boolean fits = Files.size(file) < Runtime.getRuntime().maxMemory() / 4 * 3;
+				for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+					long start = System.nanoTime();
+					lexReader(file);
+					long end = System.nanoTime();
+					if(i >= 0)
+						read[i] = end - start;
+
+					start = System.nanoTime();
+					lex(ByteLexer.open(file));
+					end = System.nanoTime();
+					if(i >= 0)
+						mapped[i] = end - start;
+
+					if(fits) {
+						start = System.nanoTime();
+						lex(new ByteLexer(Files.readAllBytes(file)));
+						end = System.nanoTime();
+						if(i >= 0)
+							array[i] = end - start;
+					}
+				}
+				benchmark.report("buffered reader", read);
+				benchmark.report("mapped file", mapped);
+				if(fits)
+					benchmark.report("byte array", array);
+				else
+					benchmark.skip("byte array", "does not fit the heap");
+			} finally {
+				Files.delete(file);
+			}
+		}
+		benchmark.finish();
+	}
+
+	/** Writes copies of the module to the given file until it has the given size, and returns the number of tokens. */
+	private static long generate(Path file, long size) throws IOException {
+		long written = 0;
+		int copies = 0;
+		try(Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			while(written < size) {
+				String module = String.format(MODULE, copies++);
+				out.write(module);
+				written += module.length();
+			}
+		}
+		return lexReader(file);
+	}
+
+	private static long lexReader(Path file) throws IOException {
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+			return lex(new Lexer(in));
+		}
+	}
+
+	private static long lex(Lexer lexer) throws IOException {
+		long tokens = 0;
+		while(!lexer.nextToken().isEOF())
+			++tokens;
+		return tokens;
+	}
+
+	private static long lex(ByteLexer lexer) {
+		long tokens = 0;
+		while(!lexer.nextToken().isEOF())
+			++tokens;
+		return tokens;
+	}
+}
@@ -0,0 +1,77 @@
+package test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import lexer.Lexer;
+import lexer.ParallelLexer;
+import frontend.TokenBuffer;
+
+/**
+ * Measures how {@link ParallelLexer} scales with the number of workers, against lexing the same
+ * buffer with a single {@link Lexer}. The source is a generated module of the given size; every
+ * measurement lexes all of it into a new {@link TokenBuffer}.
+ *
+ * Run with the size in megabytes (default 64) followed by the pool sizes to measure (default 1,
+ * 2, 4 and the number of available processors); the system property {@code runs} sets the number
+ * of measured runs (default 5), after two runs that warm up the JIT and are not measured. With
+ * more workers than processors, the numbers show the cost of splitting and stitching rather than
+ * any speedup.
+ */
+public class ParallelLexerBenchmark {
+	private static final String FUNCTION = "\tpublic int f%d(int x, int[] a) {\n"
+			+ "\t\twhile(x >= 0) { x = x - 1; a[x] = (a[x] * 3 + x) / 2; }\n"
+			+ "\t\tif(x != 42) return a[0]; else { print(\"done with f%d\"); return -x; }\n"
+			+ "\t}\n";
+
+	public static void main(String[] args) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int[] workers = { 1, 2, 4, Runtime.getRuntime().availableProcessors() };
+		if(args.length > 1) {
+			workers = new int[args.length - 1];
+			for(int i = 1; i < args.length; ++i)
+				workers[i - 1] = Integer.parseInt(args[i]);
+		}
+		int runs = Integer.getInteger("runs", 5);
+		Benchmark benchmark = new Benchmark("parallel lexer", 2, runs);
+
+		char[] source = generate(size * 1024 * 1024);
+		benchmark.setup("%d MB, %d available processors", size, Runtime.getRuntime().availableProcessors());
+
+		long[] sequential = new long[runs];
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			long start = System.nanoTime();
+			new Lexer(source).tokenize(new TokenBuffer(source));
+			long end = System.nanoTime();
+			if(i >= 0)
+				sequential[i] = end - start;
+		}
+		benchmark.report("single lexer", sequential);
+
+		for(int parallelism : workers) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				ParallelLexer lexer = new ParallelLexer(pool);
+				long[] parallel = new long[runs];
+				for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+					long start = System.nanoTime();
+					lexer.lex(source);
+					long end = System.nanoTime();
+					if(i >= 0)
+						parallel[i] = end - start;
+				}
+				benchmark.report(parallelism + " workers", parallel);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		benchmark.finish();
+	}
+
+	private static char[] generate(int size) {
+		StringBuilder source = new StringBuilder(size + 256).append("module M {\n");
+		for(int i = 0; source.length() < size; ++i)
+			source.append(String.format(FUNCTION, i, i));
+		return source.append("}\n").toString().toCharArray();
+	}
+}
@@ -0,0 +1,73 @@
+package test;
+
+import java.io.IOException;
+
+import lexer.Lexer;
+import lexer.OffsetLexer;
+import frontend.TokenBuffer;
+
+/**
+ * Compares the {@link Lexer}, which JFlex generates to count lines and columns character by
+ * character, with the {@link OffsetLexer}, which records where lines start as it scans and
+ * takes the positions of its tokens from those. Both lex the same generated module, once
+ * token by token with {@code nextToken()} and once into a {@link TokenBuffer} with
+ * {@code tokenize()}; the tokens of both carry the same positions.
+ *
+ * Run with the size in megabytes (default 16); the system property {@code runs} sets the number
+ * of measured runs (default 10), after three runs that warm up the JIT and are not measured.
+ */
+public class PositionBenchmark {
+	private static final String FUNCTION = "\tpublic int f%d(int x, int[] a) {\n"
+			+ "\t\twhile(x >= 0) { x = x - 1; a[x] = (a[x] * 3 + x) / 2; }\n"
+			+ "\t\tif(x != 42) return a[0]; else { print(\"done with f%d\"); return -x; }\n"
+			+ "\t}\n";
+
+	public static void main(String[] args) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int runs = Integer.getInteger("runs", 10);
+		Benchmark benchmark = new Benchmark("positions", 3, runs);
+
+		char[] source = generate(size * 1024 * 1024);
+		TokenBuffer tokens = new TokenBuffer(source);
+		long[] counted = new long[runs], recorded = new long[runs], countedBuffer = new long[runs], recordedBuffer = new long[runs];
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			long start = System.nanoTime();
+			Lexer lexer = new Lexer(source);
+			while(!lexer.nextToken().isEOF())
+				;
+			long lexed = System.nanoTime();
+			OffsetLexer offsetLexer = new OffsetLexer(source);
+			while(!offsetLexer.nextToken().isEOF())
+				;
+			long offsetLexed = System.nanoTime();
+
+			tokens.clear();
+			long bufferStart = System.nanoTime();
+			new Lexer(source).tokenize(tokens);
+			long tokenized = System.nanoTime();
+			tokens.clear();
+			long offsetStart = System.nanoTime();
+			new OffsetLexer(source).tokenize(tokens);
+			long offsetTokenized = System.nanoTime();
+			if(i >= 0) {
+				counted[i] = lexed - start;
+				recorded[i] = offsetLexed - lexed;
+				countedBuffer[i] = tokenized - bufferStart;
+				recordedBuffer[i] = offsetTokenized - offsetStart;
+			}
+		}
+		benchmark.setup("%d MB, %d tokens", size, tokens.size());
+		benchmark.report("Lexer, nextToken", counted);
+		benchmark.report("OffsetLexer, nextToken", recorded);
+		benchmark.report("Lexer, tokenize", countedBuffer);
+		benchmark.report("OffsetLexer, tokenize", recordedBuffer);
+		benchmark.finish();
+	}
+
+	private static char[] generate(int size) {
+		StringBuilder source = new StringBuilder(size + 256).append("module M {\n");
+		for(int i = 0; source.length() < size; ++i)
+			source.append(String.format(FUNCTION, i, i));
+		return source.append("}\n").toString().toCharArray();
+	}
+}
@@ -380,12 +380,56 @@ public final class Lexer extends Scanner {
 
   /* user code: */
 	private Symbol token(short type) {
-		return new Symbol(type, yytext());
+		return new Symbol(type, yyline, yycolumn, yylength(), yytext());
 	}
 	
 	private Symbol token(short type, String text) {
 		return new Symbol(type, yyline, yycolumn, yytext().length(), text);
 	}
+	
+	/* An error nextTokens() ran into after it had already stored some tokens; the next call
+	 * throws it, so that the tokens before the error are still delivered first. */
+	private java.io.IOException deferredIOException;
+	private Error deferredError;
+	
+	/**
+	 * Lexes up to {@code max} tokens into {@code dest}, starting at index 0, and returns the
+	 * number of tokens stored. Fewer than {@code max} tokens are only stored if the last of
+	 * them is the EOF token, or if lexing stopped at a lexical error or an I/O error, which is
+	 * then thrown by the next call.
+	 */
+	public int nextTokens(Symbol[] dest, int max) throws java.io.IOException, Scanner.Exception {
+		if(deferredIOException != null) {
+			java.io.IOException e = deferredIOException;
+			deferredIOException = null;
+			throw e;
+		}
+		if(deferredError != null) {
+			Error e = deferredError;
+			deferredError = null;
+			throw e;
+		}
+		int n = 0;
+		try {
+			while(n < max) {
+				Symbol token = nextToken();
+				dest[n++] = token;
+				if(token.getId() == EOF)
+					break;
+			}
+		} catch(java.io.IOException e) {
+			if(n == 0)
+				throw e;
+			deferredIOException = e;
+		} catch(Error e) {
+			// lexical errors are plain Errors; any other Error, such as an OutOfMemoryError or
+			// an AssertionError, is not the lexer's own and is thrown at once
+			if(n == 0 || e.getClass() != Error.class)
+				throw e;
+			deferredError = e;
+		}
+		return n;
+	}
 
 
   /**
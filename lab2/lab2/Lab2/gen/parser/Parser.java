@@ -21,12 +21,12 @@ public class Parser extends beaver.Parser {
 		static public final short FALSE = 8;
 		static public final short RPAREN = 9;
 		static public final short RCURLY = 10;
-		static public final short RBRACKET = 11;
-		static public final short VOID = 12;
-		static public final short BOOLEAN = 13;
-		static public final short INT = 14;
-		static public final short LCURLY = 15;
-		static public final short SEMICOLON = 16;
+		static public final short SEMICOLON = 11;
+		static public final short RBRACKET = 12;
+		static public final short VOID = 13;
+		static public final short BOOLEAN = 14;
+		static public final short INT = 15;
+		static public final short LCURLY = 16;
 		static public final short IF = 17;
 		static public final short WHILE = 18;
 		static public final short BREAK = 19;
@@ -51,33 +51,33 @@ public class Parser extends beaver.Parser {
 	}
 
 	static final ParsingTables PARSING_TABLES = new ParsingTables(
-		"U9pDLWTq55KKlJER04d0B4X2KH0Y418CtKWnGYY9T4DH4II0ZQQ82XP04H0q8ceeScpeeJV" +
-		"5WWKBYWtKW8YYWgY087O1HHJrUUVlts5sTiPaEGUEi#V#L#Q#z$$##UK1vdfSX6pqGWTqGc" +
-		"TqHH#qnXYqnDau0zVZPjH7AggZ1chYD9oEMgYDgZ57L8ivuinI8ngw8ahZPyN8d#JYZyF56" +
-		"8Jso4C#paSNnCi7c8NRCHbJa8OW9Y03ZT4qYZU3FDFcdUl7amNajR5v0TzyTwhnXNbnlhmx" +
-		"C1rpR5vvNzufpdpojysBdfzXQdxy$DrSURjZ2Ax0vUYBVhWGBRGSAWTm0$rNUUGPu9FVpzz" +
-		"8#VlpJSU8DstbPzo2IpqYclbaQkNZx#7ZB$3n5yQOvrQlcPCLKNCv0icuAShhZli5TsCusn" +
-		"ivyxFb3wxEaHY5gt4DHkFQqg9TivXJAlzas#qYnfSROLL25PpAjXndgW8Ia88AiWL5I4GIA" +
-		"kesj6#AGYjT5cCuwg8ExNGvebV$G3aYtt3VJDMSvR8FnQYCUcY0UwXbuYoSWoQu4jFGd3lv" +
-		"FFJ41UXDUOaimc1SXkjafIp3HDo5iHYFssG$PifUt8Uv$7hXvrxYVgKzOFlci8TqdcWPxAC" +
-		"HUydY3cp2FTYC$RHGQoIRFRVYYcc3jkmvXtt#7oDEDD$WIHhWcHVFBrsUNxe3lsqdVjjAFC" +
-		"MI#QQoMWTLetX1ychRlFQ#lDxazR9vXYylDBumBzcNPwtTQZOliOpvOFFyviVFxyvhMTRU2" +
-		"TrYGIqB5C$onvhVpz$LuutLXvV$#7euqNxtp2L4UUBeIOhoUjarj3UqEklmd4bZFLEFDKLf" +
-		"qUxHbQMtasb7ZY$IQiSvIrQdT1pFv8xyxvq9W#TuTzv$eJQqpWszqfCuKq5Q1ckkHErBePQ" +
-		"Wzat8Jk2lEi$PH9wqjQW5QASoAeM$87ToBhEOX2MJ53kese3wMY6FGSHRjkW7gKHGQK7RLu" +
-		"txRjwaq7ayYzX8R2Qs0UOuols0KOxwUCfT5YyC#iRIjuNAVEeJYVv4Nzh5b8KwvsBgGvnnR" +
-		"l3z16AKvg#bFatx1slV9ctp$Z2sKiwWiLlxfeUaaKQzo2CtXR53Sqg8W$GDfVoJIA6Ug7bL" +
-		"$ckCaJcD3F9h4iKwzc72wd#sVb$3OnoPn5ojZoQQ4xm9pJR4Wpfk7VM7DESHOWhHWNYqREC" +
-		"ov#WysTJdQtqViK7hm#X$J7CN4Ls91JGEU#HQI4mbHXBMDrogS#oXlaHpLX6F4ok8POxOvL" +
-		"gk9bOUysECGxVMIfeZfdxq653YU9yRrhbejplqGsMP6qVEYkwSVEeVynbPsfSJ6MVa#USqU" +
-		"kiOxXV3#fu3A7U6fAdpcIrZ6wSno6MFS8oxq8EVuhBhQZdEyT$tHiVXG2pZyXdhP1$$JDr7" +
-		"F$zOB3gE$fPwv9a7$SXH#KT9jlAx79RVu7haLzNkaTsoIxwIB#KBsQaydwhsG$bSTb1#PlC" +
-		"$8ROfxMFvI3RB9bb3lKGsi7s7U8rucNXUdfCrygmy8q$BKx9QdfGdv7qLzwwyf#H6MIThvK" +
-		"LvGLvIzXB7g1QgTfLjBvLNvHLvMzwID#KDMI#lqxTLlVdEoYhVA$rRcxzTVf8VvGT7ngzLU" +
-		"yYs3tA$79M$bCxp3mDvRna4M06Muxrj4k3T7U0zPXBWNMROwCRxf3jlkHxaDgSTHWi7MZ8s" +
-		"Z9wqUp97FcK#xJpcpARkXzOA9klVUDvw9clW02lWUDR09glW066o5ZPP6GTOevi4MCKO2at" +
-		"fIwUqq91Zj61LDytexqNfXSPyPzLhxJMoQ5krHwu33TXF0ygCKf39$gpwie1ZwaBPHLMW1Y" +
-		"k40Aj1WmYmLWYWpxzaqPTy");
+		"U9pDLWcOJbKOVk$zPsZ#cHYKVIdAp606WuJ4cCKaCMPQ92qAan8rxGjHjgGcIoWrP2dxlhV" +
+		"GgcYHaAIT8gb8rAI#tdlkCUxS$x$FdPddoTF$FE#tdU$xpldFFTyv7s1kHc#qm#NeZ4lG1T" +
+		"tH4nVZ7hH1MzH40zo7eKX0TTH67TH5FPo3Sr4VLSiGKwCCCN6UCOb5CKrSCVuHoQME6EcAU" +
+		"13NuYQaur9qnMNe1bEsI06UnIYCnXWqn70aeGLQXVX5oXPCBO7VCyeluEltX5fVXA$VM8oJ" +
+		"uuZszOjL#QQ5#8Nkq6rgXxpiMSNpoZ6PWmjn2mOW3PcEY5pSYYcq3moJwGQF6RpipPIzFAx" +
+		"ZM6QniOxoFchXnZ0n5tZaQkzXp$QmN#bXxrlAF8#6tRqNtHOCHW$qnv0GkploRmoIFt0rUk" +
+		"4Q#HdtutRSWJpSYRjmjr#iQnSx#VgVRZs8mNACDAFOEjL$HKLKuhcgY78u2sSW2eD8yt4sO" +
+		"d0cAcXgrqw#VTRb41xYZkQZCbBa9poihNindhNpcDPUaE$G0LNe#nGce9fyW3uu3#SZ7e#Z" +
+		"4KzOOpH5IpH72Yv2QwGY1rUGNeNhPGRwuMOy82$9R3o29t4lHc2OxCD4#HPFupc0tt8odYU" +
+		"V1EitZRKNnxm9pDkODrmYwx0fJtXptbqjE4ShdjpMh2ZhjBJZRErvTZhyZsDEHuG1apTc12" +
+		"BvrSlpUzVbsSYXl$MjA$9cgyHlMuNdmUsNIh$q4liPldxs#c9z$Jhpt0Pv9vSiNxKGFwyTy" +
+		"hAxymPP5z6gQef7PBDEgeUn#y$WPG#oPaF7hFyUpbwsEVvhktltea8i4KgF2R6xTR0J2hBd" +
+		"gSMUmXgpEue6wYRnYtMlpi$$TEl9b8EanTTf$zUEzAvEciQzoo2jGMhmFDktkKtjitwonkp" +
+		"i1f6YPDjgdLghTcmjXdeMxtrhl0xd3lBq6lImU0$oUeoEfayAUzPelc8nzBDeZ8gCqZIWOc" +
+		"pD829XY52BHZHvLU6F5GWK35FNCzzfO0knbJWC6754R#8GOEQGxwFzWENh1CU640C8nfiZY" +
+		"7v4NmvC9H#lSo#aF84vSjtnOVBnnJ0dwRYDb2Th#qXjswvrA$zCvjn3Na33VcsVPdCZdlBq" +
+		"CFadScolzjb15DBMap0fxoIlhFrg#gtrL4vZ5$th4pDqx0AY4J5Bwrt3h2EPcAtbCKHROWx" +
+		"HYPYdyswYF5$xS0#D1F8knAAIhSjShFCSeJnNsuPJtwhbqSGIBQyaiebbL4w4oRM264Va4Q" +
+		"k8DTe#XLYjvLU8fSHwOgqZThb3ta2iEwKZoo5RkHCSlasy$nksEVmoJyeyrBiTyj6Ix5EOt" +
+		"1KSkNjeMtnn7wEbjgUuxDsyyngzTCuCojPtphNhogeV8rQFjIdTMet#BZtFiVQ1OVnhk$Hu" +
+		"pOSw$l$1q3WSByswFDOwriEkQnozl6Cnl$JpOPI7lG3w9uNoZ#8sFIA$or7v3QwV7DRyC$b" +
+		"Qlf8lvGlP8v$BRcNRhkY7iai#9T$XYFg4sAQaZsMhR9RtXBKXxygRf6yGBnDhYEMoJ9RA4b" +
+		"aiYsIXB93vCaysgRYtvHt5tvBriafMoWfPhVIPZbccApgtI9ybwsIjl2uRPOEy9gyAQr8#K" +
+		"YC$M5bblvA$B$BVAGVbHpdWoFYDehyMwR#maWhbXFobj3z9#gYNhoEb7BwIgNn$KgcdKa$d" +
+		"kvD6FOrw6dNhFJm5aszY55$52BwBvVWo6aLewK0hvZW9wnNipZoPv9dKEpD7QyhUCDa$6uJ" +
+		"9VZgIxwN9dZh0ZZgIFRN9hZf0cEojJNRQ0NR#9c4GO5TaA3IZFOxSGZpNQi7gbfhJdaKU3a" +
+		"aSIo9FqKYaRlKodHneoBaQaYVue17dooRdRSoErI02x5qDzXq1TfS64M074a3ol#hshjy=");
 
 	static final Action RETURN6 = new Action() {
 		public Symbol reduce(Symbol[] _symbols, int offset) {
@@ -115,10 +115,60 @@ public class Parser extends beaver.Parser {
 		}
 	};
 
-	// turn off automated error recovery
+	/* If set, syntax errors are recorded in this list and recovered from instead of being thrown. */
+	private java.util.List<frontend.SyntaxError> errors;
+	
+	/**
+	 * Makes the parser recover from syntax errors: every error is added to the given list, and
+	 * parsing carries on after it. Beaver first tries to fix the input by inserting, removing or
+	 * replacing a single token; failing that, the input is skipped up to the next semicolon, or
+	 * up to the closing brace of the enclosing block or module. With {@code null}, the default,
+	 * the parser throws at the first syntax error instead.
+	 *
+	 * An error the parser cannot recover from, like one at the end of the input, is recorded
+	 * and then thrown as well.
+	 */
+	public void setErrorList(java.util.List<frontend.SyntaxError> errors) {
+		this.errors = errors;
+		this.report = errors == null ? new Events() : new ErrorRecorder();
+	}
+	
+	/* Records syntax errors in the error list, and is silent about how they were recovered from. */
+	private class ErrorRecorder extends Events {
+		@Override
+		public void syntaxError(Symbol token) {
+			errors.add(new frontend.SyntaxError(Symbol.getLine(token.getStart()), Symbol.getColumn(token.getStart()),
+					token.getId() == Terminals.EOF ? "unexpected end of input" : "unexpected token '" + token.value + "'"));
+		}
+		
+		@Override
+		public void unexpectedTokenRemoved(Symbol token) {}
+		
+		@Override
+		public void missingTokenInserted(Symbol token) {}
+		
+		@Override
+		public void misspelledTokenReplaced(Symbol token) {}
+		
+		@Override
+		public void errorPhraseRemoved(Symbol error) {}
+	}
+	
+	// turn off automated error recovery unless errors are recorded
 	@Override
 	protected void recoverFromError(Symbol token, TokenStream in) throws java.io.IOException, Exception {
-		super.recoverFromError(new Symbol(0), in);
+		super.recoverFromError(errors == null ? new Symbol(0) : token, in);
+	}
+
+	/**
+	 * Parses the input of the given lexer, which is run in batches of tokens by a
+	 * {@link lexer.BatchScanner}; {@code parse(lexer)} takes the tokens one at a time.
+	 * This is an experiment, not a speedup: Beaver still takes one {@link Symbol} at a time
+	 * and every token is still allocated as one, and no gain over {@code parse(lexer)} has
+	 * been measured.
+	 */
+	public Object parseBatched(lexer.Lexer lexer) throws java.io.IOException, Exception {
+		return parse(new lexer.BatchScanner(lexer));
 	}
 
 	private final Action[] actions;
@@ -130,110 +180,115 @@ public class Parser extends beaver.Parser {
 			Action.NONE,  	// [1] Accessibility = 
 			RETURN6,	// [2] Module = MODULE ID LCURLY Import ModuleDeclaration RCURLY; returns 'RCURLY' although none is marked
 			RETURN2,	// [3] Import = ImportTerminal Import; returns 'Import' although none is marked
-			Action.NONE,  	// [4] Import = 
-			RETURN3,	// [5] ImportTerminal = IMPORT ID SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN2,	// [6] ModuleDeclaration = ModuleDeclarationTerminal ModuleDeclaration; returns 'ModuleDeclaration' although none is marked
-			Action.NONE,  	// [7] ModuleDeclaration = 
-			Action.RETURN,	// [8] ModuleDeclarationTerminal = FunctionDeclaration
-			Action.RETURN,	// [9] ModuleDeclarationTerminal = FieldDeclaration
-			Action.RETURN,	// [10] ModuleDeclarationTerminal = TypeDeclaration
-			RETURN9,	// [11] FunctionDeclaration = Accessibility TypeName ID LPAREN ParameterList RPAREN LCURLY StatementList RCURLY; returns 'RCURLY' although none is marked
-			RETURN4,	// [12] FieldDeclaration = Accessibility TypeName ID SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN6,	// [13] TypeDeclaration = Accessibility TYPE ID EQL STRING_LITERAL SEMICOLON; returns 'SEMICOLON' although none is marked
-			Action.RETURN,	// [14] TypeName = PrimitiveType
-			Action.RETURN,	// [15] TypeName = ID
-			Action.RETURN,	// [16] TypeName = ArrayType
-			Action.RETURN,	// [17] PrimitiveType = VOID
-			Action.RETURN,	// [18] PrimitiveType = BOOLEAN
-			Action.RETURN,	// [19] PrimitiveType = INT
-			RETURN3,	// [20] ArrayType = ID LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
-			RETURN3,	// [21] ArrayType = PrimitiveType LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
-			RETURN3,	// [22] ArrayType = ArrayType LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
-			Action.RETURN,	// [23] ParameterList = ParameterListHelper
-			Action.NONE,  	// [24] ParameterList = 
-			Action.RETURN,	// [25] ParameterListHelper = Parameter
-			RETURN3,	// [26] ParameterListHelper = Parameter COMMA ParameterListHelper; returns 'ParameterListHelper' although none is marked
-			RETURN2,	// [27] Parameter = TypeName ID; returns 'ID' although none is marked
-			Action.RETURN,	// [28] Statement = LocalVariableDeclaration
-			Action.RETURN,	// [29] Statement = BlockStatement
-			Action.RETURN,	// [30] Statement = IfStatement
-			Action.RETURN,	// [31] Statement = WhileStatement
-			Action.RETURN,	// [32] Statement = BreakStatement
-			Action.RETURN,	// [33] Statement = ReturnStatement
-			Action.RETURN,	// [34] Statement = ExpressionStatement
-			Action.RETURN,	// [35] IfStatement = IfOnlyStatement
-			RETURN2,	// [36] IfStatement = IfOnlyStatement ElseOnlyStatement; returns 'ElseOnlyStatement' although none is marked
-			RETURN5,	// [37] IfOnlyStatement = IF LPAREN Expression RPAREN Statement; returns 'Statement' although none is marked
-			RETURN2,	// [38] ElseOnlyStatement = ELSE Statement; returns 'Statement' although none is marked
-			RETURN3,	// [39] LocalVariableDeclaration = TypeName ID SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN5,	// [40] WhileStatement = WHILE LPAREN Expression RPAREN Statement; returns 'Statement' although none is marked
-			RETURN2,	// [41] BreakStatement = BREAK SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN3,	// [42] ReturnStatement = RETURN Expression SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN2,	// [43] ReturnStatement = RETURN SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN2,	// [44] ExpressionStatement = Expression SEMICOLON; returns 'SEMICOLON' although none is marked
-			RETURN3,	// [45] BlockStatement = LCURLY StatementList RCURLY; returns 'RCURLY' although none is marked
-			RETURN2,	// [46] StatementList = Statement StatementList; returns 'StatementList' although none is marked
-			Action.NONE,  	// [47] StatementList = 
-			Action.RETURN,	// [48] Expression = Assignment
-			Action.RETURN,	// [49] Expression = RHSExpression
-			RETURN3,	// [50] Assignment = LHSExpression EQL Expression; returns 'Expression' although none is marked
-			Action.RETURN,	// [51] LHSExpression = ID
-			Action.RETURN,	// [52] LHSExpression = ArrayAccess
-			RETURN4,	// [53] ArrayAccess = ID LBRACKET Expression RBRACKET; returns 'RBRACKET' although none is marked
-			RETURN4,	// [54] ArrayAccess = ArrayAccess LBRACKET Expression RBRACKET; returns 'RBRACKET' although none is marked
-			Action.RETURN,	// [55] RHSExpression = ArithmeticExpression
-			RETURN3,	// [56] RHSExpression = ArithmeticExpression ComparisonOperator ArithmeticExpression; returns 'ArithmeticExpression' although none is marked
-			Action.RETURN,	// [57] ComparisonOperator = EQEQ
-			Action.RETURN,	// [58] ComparisonOperator = NEQ
-			Action.RETURN,	// [59] ComparisonOperator = LT
-			Action.RETURN,	// [60] ComparisonOperator = LEQ
-			Action.RETURN,	// [61] ComparisonOperator = GT
-			Action.RETURN,	// [62] ComparisonOperator = GEQ
-			new Action() {	// [63] ArithmeticExpression = ArithmeticExpression AdditiveOperator Term
+			Action.RETURN,	// [4] Import = error
+			Action.NONE,  	// [5] Import = 
+			RETURN3,	// [6] ImportTerminal = IMPORT ID SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN2,	// [7] ModuleDeclaration = ModuleDeclarationTerminal ModuleDeclaration; returns 'ModuleDeclaration' although none is marked
+			Action.RETURN,	// [8] ModuleDeclaration = error
+			Action.NONE,  	// [9] ModuleDeclaration = 
+			Action.RETURN,	// [10] ModuleDeclarationTerminal = FunctionDeclaration
+			Action.RETURN,	// [11] ModuleDeclarationTerminal = FieldDeclaration
+			Action.RETURN,	// [12] ModuleDeclarationTerminal = TypeDeclaration
+			RETURN2,	// [13] ModuleDeclarationTerminal = error SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN9,	// [14] FunctionDeclaration = Accessibility TypeName ID LPAREN ParameterList RPAREN LCURLY StatementList RCURLY; returns 'RCURLY' although none is marked
+			RETURN4,	// [15] FieldDeclaration = Accessibility TypeName ID SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN6,	// [16] TypeDeclaration = Accessibility TYPE ID EQL STRING_LITERAL SEMICOLON; returns 'SEMICOLON' although none is marked
+			Action.RETURN,	// [17] TypeName = PrimitiveType
+			Action.RETURN,	// [18] TypeName = ID
+			Action.RETURN,	// [19] TypeName = ArrayType
+			Action.RETURN,	// [20] PrimitiveType = VOID
+			Action.RETURN,	// [21] PrimitiveType = BOOLEAN
+			Action.RETURN,	// [22] PrimitiveType = INT
+			RETURN3,	// [23] ArrayType = ID LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
+			RETURN3,	// [24] ArrayType = PrimitiveType LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
+			RETURN3,	// [25] ArrayType = ArrayType LBRACKET RBRACKET; returns 'RBRACKET' although none is marked
+			Action.RETURN,	// [26] ParameterList = ParameterListHelper
+			Action.NONE,  	// [27] ParameterList = 
+			Action.RETURN,	// [28] ParameterListHelper = Parameter
+			RETURN3,	// [29] ParameterListHelper = Parameter COMMA ParameterListHelper; returns 'ParameterListHelper' although none is marked
+			RETURN2,	// [30] Parameter = TypeName ID; returns 'ID' although none is marked
+			Action.RETURN,	// [31] Statement = LocalVariableDeclaration
+			Action.RETURN,	// [32] Statement = BlockStatement
+			Action.RETURN,	// [33] Statement = IfStatement
+			Action.RETURN,	// [34] Statement = WhileStatement
+			Action.RETURN,	// [35] Statement = BreakStatement
+			Action.RETURN,	// [36] Statement = ReturnStatement
+			Action.RETURN,	// [37] Statement = ExpressionStatement
+			RETURN2,	// [38] Statement = error SEMICOLON; returns 'SEMICOLON' although none is marked
+			Action.RETURN,	// [39] IfStatement = IfOnlyStatement
+			RETURN2,	// [40] IfStatement = IfOnlyStatement ElseOnlyStatement; returns 'ElseOnlyStatement' although none is marked
+			RETURN5,	// [41] IfOnlyStatement = IF LPAREN Expression RPAREN Statement; returns 'Statement' although none is marked
+			RETURN2,	// [42] ElseOnlyStatement = ELSE Statement; returns 'Statement' although none is marked
+			RETURN3,	// [43] LocalVariableDeclaration = TypeName ID SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN5,	// [44] WhileStatement = WHILE LPAREN Expression RPAREN Statement; returns 'Statement' although none is marked
+			RETURN2,	// [45] BreakStatement = BREAK SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN3,	// [46] ReturnStatement = RETURN Expression SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN2,	// [47] ReturnStatement = RETURN SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN2,	// [48] ExpressionStatement = Expression SEMICOLON; returns 'SEMICOLON' although none is marked
+			RETURN3,	// [49] BlockStatement = LCURLY StatementList RCURLY; returns 'RCURLY' although none is marked
+			RETURN2,	// [50] StatementList = Statement StatementList; returns 'StatementList' although none is marked
+			Action.RETURN,	// [51] StatementList = error
+			Action.NONE,  	// [52] StatementList = 
+			Action.RETURN,	// [53] Expression = Assignment
+			Action.RETURN,	// [54] Expression = RHSExpression
+			RETURN3,	// [55] Assignment = LHSExpression EQL Expression; returns 'Expression' although none is marked
+			Action.RETURN,	// [56] LHSExpression = ID
+			Action.RETURN,	// [57] LHSExpression = ArrayAccess
+			RETURN4,	// [58] ArrayAccess = ID LBRACKET Expression RBRACKET; returns 'RBRACKET' although none is marked
+			RETURN4,	// [59] ArrayAccess = ArrayAccess LBRACKET Expression RBRACKET; returns 'RBRACKET' although none is marked
+			Action.RETURN,	// [60] RHSExpression = ArithmeticExpression
+			RETURN3,	// [61] RHSExpression = ArithmeticExpression ComparisonOperator ArithmeticExpression; returns 'ArithmeticExpression' although none is marked
+			Action.RETURN,	// [62] ComparisonOperator = EQEQ
+			Action.RETURN,	// [63] ComparisonOperator = NEQ
+			Action.RETURN,	// [64] ComparisonOperator = LT
+			Action.RETURN,	// [65] ComparisonOperator = LEQ
+			Action.RETURN,	// [66] ComparisonOperator = GT
+			Action.RETURN,	// [67] ComparisonOperator = GEQ
+			new Action() {	// [68] ArithmeticExpression = ArithmeticExpression AdditiveOperator Term
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					((ArrayList) _symbols[offset + 1].value).add(_symbols[offset + 3]); return _symbols[offset + 1];
 				}
 			},
-			new Action() {	// [64] ArithmeticExpression = Term
+			new Action() {	// [69] ArithmeticExpression = Term
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					ArrayList lst = new ArrayList(); lst.add(_symbols[offset + 1]); return new Symbol(lst);
 				}
 			},
-			Action.RETURN,	// [65] AdditiveOperator = PLUS
-			Action.RETURN,	// [66] AdditiveOperator = MINUS
-			new Action() {	// [67] Term = Term MultiplicativeOperator Factor
+			Action.RETURN,	// [70] AdditiveOperator = PLUS
+			Action.RETURN,	// [71] AdditiveOperator = MINUS
+			new Action() {	// [72] Term = Term MultiplicativeOperator Factor
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					((ArrayList) _symbols[offset + 1].value).add(_symbols[offset + 3]); return _symbols[offset + 1];
 				}
 			},
-			new Action() {	// [68] Term = Factor
+			new Action() {	// [73] Term = Factor
 				public Symbol reduce(Symbol[] _symbols, int offset) {
 					ArrayList lst = new ArrayList(); lst.add(_symbols[offset + 1]); return new Symbol(lst);
 				}
 			},
-			Action.RETURN,	// [69] MultiplicativeOperator = TIMES
-			Action.RETURN,	// [70] MultiplicativeOperator = DIV
-			Action.RETURN,	// [71] MultiplicativeOperator = MOD
-			RETURN2,	// [72] Factor = MINUS Factor; returns 'Factor' although none is marked
-			Action.RETURN,	// [73] Factor = PrimaryExpression
-			Action.RETURN,	// [74] PrimaryExpression = LHSExpression
-			Action.RETURN,	// [75] PrimaryExpression = FunctionCall
-			Action.RETURN,	// [76] PrimaryExpression = ArrayExpression
-			Action.RETURN,	// [77] PrimaryExpression = STRING_LITERAL
-			Action.RETURN,	// [78] PrimaryExpression = INT_LITERAL
-			Action.RETURN,	// [79] PrimaryExpression = TRUE
-			Action.RETURN,	// [80] PrimaryExpression = FALSE
-			Action.RETURN,	// [81] PrimaryExpression = ParenthesizedExpression
-			RETURN4,	// [82] FunctionCall = ID LPAREN ArgumentsList RPAREN; returns 'RPAREN' although none is marked
-			Action.RETURN,	// [83] ArgumentsList = ArgumentsListHelper
-			Action.NONE,  	// [84] ArgumentsList = 
-			Action.RETURN,	// [85] ArgumentsListHelper = Argument
-			RETURN3,	// [86] ArgumentsListHelper = Argument COMMA ArgumentsListHelper; returns 'ArgumentsListHelper' although none is marked
-			Action.RETURN,	// [87] Argument = Expression
-			RETURN3,	// [88] ArrayExpression = LBRACKET NonEmptyExpressionList RBRACKET; returns 'RBRACKET' although none is marked
-			Action.RETURN,	// [89] NonEmptyExpressionList = Expression
-			RETURN3,	// [90] NonEmptyExpressionList = Expression COMMA NonEmptyExpressionList; returns 'NonEmptyExpressionList' although none is marked
-			RETURN3	// [91] ParenthesizedExpression = LPAREN Expression RPAREN; returns 'RPAREN' although none is marked
+			Action.RETURN,	// [74] MultiplicativeOperator = TIMES
+			Action.RETURN,	// [75] MultiplicativeOperator = DIV
+			Action.RETURN,	// [76] MultiplicativeOperator = MOD
+			RETURN2,	// [77] Factor = MINUS Factor; returns 'Factor' although none is marked
+			Action.RETURN,	// [78] Factor = PrimaryExpression
+			Action.RETURN,	// [79] PrimaryExpression = LHSExpression
+			Action.RETURN,	// [80] PrimaryExpression = FunctionCall
+			Action.RETURN,	// [81] PrimaryExpression = ArrayExpression
+			Action.RETURN,	// [82] PrimaryExpression = STRING_LITERAL
+			Action.RETURN,	// [83] PrimaryExpression = INT_LITERAL
+			Action.RETURN,	// [84] PrimaryExpression = TRUE
+			Action.RETURN,	// [85] PrimaryExpression = FALSE
+			Action.RETURN,	// [86] PrimaryExpression = ParenthesizedExpression
+			RETURN4,	// [87] FunctionCall = ID LPAREN ArgumentsList RPAREN; returns 'RPAREN' although none is marked
+			Action.RETURN,	// [88] ArgumentsList = ArgumentsListHelper
+			Action.NONE,  	// [89] ArgumentsList = 
+			Action.RETURN,	// [90] ArgumentsListHelper = Argument
+			RETURN3,	// [91] ArgumentsListHelper = Argument COMMA ArgumentsListHelper; returns 'ArgumentsListHelper' although none is marked
+			Action.RETURN,	// [92] Argument = Expression
+			RETURN3,	// [93] ArrayExpression = LBRACKET NonEmptyExpressionList RBRACKET; returns 'RBRACKET' although none is marked
+			Action.RETURN,	// [94] NonEmptyExpressionList = Expression
+			RETURN3,	// [95] NonEmptyExpressionList = Expression COMMA NonEmptyExpressionList; returns 'NonEmptyExpressionList' although none is marked
+			RETURN3	// [96] ParenthesizedExpression = LPAREN Expression RPAREN; returns 'RPAREN' although none is marked
 		};
 	}
 
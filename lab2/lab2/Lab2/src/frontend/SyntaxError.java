@@ -0,0 +1,38 @@
+package frontend;
+
+/**
+ * A syntax error the parser recovered from: the token at the given position did not fit the
+ * grammar. Parsers that recover from errors record one of these for every error, and carry on
+ * parsing after it.
+ */
+public final class SyntaxError {
+	private final int line, column;
+	private final String message;
+
+	public SyntaxError(int line, int column, String message) {
+		assert line >= 0;
+		assert column >= 0;
+		assert message != null;
+
+		this.line = line;
+		this.column = column;
+		this.message = message;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return line + ":" + column + ": " + message;
+	}
+}
@@ -0,0 +1,41 @@
+package lexer;
+
+import java.io.IOException;
+
+import beaver.Scanner;
+import beaver.Symbol;
+
+/**
+ * Feeds the parser from a {@link Lexer} that is run in batches: tokens are lexed into an array
+ * by {@link Lexer#nextTokens(Symbol[], int)}, and handed out one by one from there. This keeps
+ * the lexer's scanning loop running for many tokens at a time instead of switching between
+ * lexer and parser after every token. It is only used by {@code Parser.parseBatched}, an
+ * experiment that has not been measured to be faster than taking the tokens one at a time.
+ */
+public final class BatchScanner extends Scanner {
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	private final Lexer lexer;
+	private final Symbol[] batch;
+	private int position, size;
+
+	public BatchScanner(Lexer lexer) {
+		this(lexer, DEFAULT_BATCH_SIZE);
+	}
+
+	public BatchScanner(Lexer lexer, int batchSize) {
+		assert batchSize > 0;
+
+		this.lexer = lexer;
+		this.batch = new Symbol[batchSize];
+	}
+
+	@Override
+	public Symbol nextToken() throws IOException, Scanner.Exception {
+		if(position == size) {
+			size = lexer.nextTokens(batch, batch.length);
+			position = 0;
+		}
+		return batch[position++];
+	}
+}
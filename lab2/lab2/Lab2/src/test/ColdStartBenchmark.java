@@ -0,0 +1,66 @@
+package test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+
+import lexer.Lexer;
+import parser.Parser;
+
+/**
+ * Measures what a short-lived compiler invocation pays before it gets going: the time until
+ * the first token has been lexed, and until the first module has been parsed, in a fresh JVM.
+ * Both include loading and initialising the lexer and parser classes and their tables.
+ *
+ * Run without arguments (or with the number of runs) to start that many JVMs on the current
+ * class path and print the median and minimum times.
+ */
+public class ColdStartBenchmark {
+	private static final String CHILD = "--child";
+	private static final String SOURCE = "module Test { import Lib; public int f(int x) { return x + 1; } }";
+
+	public static void main(String[] args) throws Exception {
+		if(args.length > 0 && args[0].equals(CHILD)) {
+			measure();
+			return;
+		}
+
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		Benchmark benchmark = new Benchmark("cold start", 0, runs);
+		long[] firstToken = new long[runs], firstParse = new long[runs];
+		for(int i = 0; i < benchmark.getRuns(); ++i) {
+			String[] result = runChild().trim().split(" ");
+			firstToken[i] = Long.parseLong(result[0]);
+			firstParse[i] = Long.parseLong(result[1]);
+		}
+		benchmark.report("first token", firstToken);
+		benchmark.report("first parse", firstParse);
+		benchmark.finish();
+	}
+
+	/** Prints the time to the first token and to the end of the first parse, in nanoseconds. */
+	private static void measure() throws Exception {
+		long start = System.nanoTime();
+		new Lexer(new StringReader(SOURCE)).nextToken();
+		long token = System.nanoTime();
+		new Parser().parse(new Lexer(new StringReader(SOURCE)));
+		long parse = System.nanoTime();
+		System.out.println((token - start) + " " + (parse - start));
+	}
+
+	private static String runChild() throws IOException, InterruptedException {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ColdStartBenchmark.class.getName(), CHILD).redirectErrorStream(true).start();
+		StringBuilder output = new StringBuilder();
+		try(BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			for(String line = in.readLine(); line != null; line = in.readLine())
+				output.append(line).append('\n');
+		}
+		if(process.waitFor() != 0)
+			throw new IOException("benchmark run failed:\n" + output);
+		return output.toString();
+	}
+}
@@ -0,0 +1,81 @@
+package test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import lexer.Lexer;
+import parser.Parser;
+import frontend.SyntaxError;
+
+/**
+ * Measures the time it takes to find all syntax errors in a module with many of them: once
+ * with error recovery, in a single parse, and once the way it is done without recovery, by
+ * parsing, fixing the first error, and parsing again until the module is correct.
+ *
+ * Run with the number of functions in the module (default 2000), the number of errors
+ * injected into it (default 50) and the number of measured runs (default 20).
+ */
+public class ErrorRecoveryBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int functions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int errors = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		Benchmark benchmark = new Benchmark("error recovery", 10, runs);
+
+		// variants[i] has all but the first i errors, so the last one is correct
+		String[] variants = new String[errors + 1];
+		for(int i = 0; i <= errors; ++i)
+			variants[i] = generate(functions, errors, i);
+
+		long[] recovering = new long[runs], roundTrips = new long[runs];
+		for(int run = -benchmark.getWarmup(); run < benchmark.getRuns(); ++run) {
+			long start = System.nanoTime();
+			List<SyntaxError> found = new ArrayList<SyntaxError>();
+			Parser parser = new Parser();
+			parser.setErrorList(found);
+			parser.parse(new Lexer(new StringReader(variants[0])));
+			if(found.size() != errors)
+				throw new IllegalStateException("found " + found.size() + " of " + errors + " errors");
+			long recovered = System.nanoTime();
+
+			for(int i = 0; i <= errors; ++i) {
+				try {
+					new Parser().parse(new Lexer(new StringReader(variants[i])));
+					if(i < errors)
+						throw new IllegalStateException("error " + i + " not found");
+				} catch(beaver.Parser.Exception e) {
+					if(i == errors)
+						throw e;
+				}
+			}
+			long fixed = System.nanoTime();
+			if(run >= 0) {
+				recovering[run] = recovered - start;
+				roundTrips[run] = fixed - recovered;
+			}
+		}
+		benchmark.setup("%d functions, %d errors, %d characters", functions, errors, variants[0].length());
+		benchmark.report("single parse with recovery", recovering);
+		benchmark.report("parse and fix until correct", roundTrips);
+		benchmark.finish();
+	}
+
+	/** Generates a module with the given number of functions, in which errors are spread evenly, skipping the first {@code fixed} ones. */
+	private static String generate(int functions, int errors, int fixed) {
+		StringBuilder source = new StringBuilder("module Bench {\n  import Lib;\n");
+		int error = 0;
+		for(int i = 0; i < functions; ++i) {
+			source.append("  public int f").append(i).append("(int a, int[] b) {\n");
+			source.append("    int x;\n    x = a * ").append(i).append(" + b[").append(i % 10).append("];\n");
+			if(error < errors && (long)i * errors / functions == error) {
+				if(error++ >= fixed)
+					source.append("    x = ) a;\n");
+			}
+			source.append("    while (x != 0) { x = x - 1; if (x < a) { g(x, \"s\"); } }\n");
+			source.append("    return x;\n  }\n");
+		}
+		return source.append("}\n").toString();
+	}
+}
@@ -1,14 +1,21 @@
 package test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
+import lexer.BatchScanner;
 import lexer.Lexer;
 
 import org.junit.Test;
 
 import parser.Parser;
+import beaver.Symbol;
+import frontend.SyntaxError;
 
 public class ParserTests {
 	private void runtest(String src) {
@@ -307,4 +314,77 @@ public class ParserTests {
 	public void testExpressionStatement() {
 		runtest("module Test { int a; int b; boolean c; public int testFunction() { a == b; } }");
 	}
+	
+	@Test
+	public void testBatchedTokens() throws Exception {
+		String src = "module Test { import lib1; int a; public int f(int x) { while(x > 0) { x = x - 1; } return x; } }";
+		for(int batchSize = 1; batchSize <= 4; ++batchSize)
+			new Parser().parse(new BatchScanner(new Lexer(new StringReader(src)), batchSize));
+		new Parser().parseBatched(new Lexer(new StringReader(src)));
+		
+		// a syntax error in front of a lexical error is still reported first
+		try {
+			new Parser().parseBatched(new Lexer(new StringReader("module Test { import lib1 } #")));
+			fail("Test was supposed to fail, but succeeded");
+		} catch (beaver.Parser.Exception e) {
+		}
+		
+		// any other error is thrown at once, even after some tokens have been lexed
+		final String prefix = "module Test { import lib1;";
+		Reader failing = new Reader() {
+			private boolean read;
+			
+			@Override
+			public int read(char[] buffer, int offset, int length) {
+				if(read)
+					throw new AssertionError("read past the input");
+				read = true;
+				prefix.getChars(0, prefix.length(), buffer, offset);
+				return prefix.length();
+			}
+			
+			@Override
+			public void close() {
+			}
+		};
+		try {
+			new Lexer(failing).nextTokens(new Symbol[16], 16);
+			fail("Test was supposed to fail, but succeeded");
+		} catch (AssertionError e) {
+			assertEquals("read past the input", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testErrorRecovery() throws Exception {
+		String src = "module Test {\n"
+				+ "  import lib1;\n"
+				+ "  int a b;\n"
+				+ "  public int f(int x) {\n"
+				+ "    ) ;\n"
+				+ "    while (x > 0) { x = x - 1; }\n"
+				+ "    return + ;\n"
+				+ "  }\n"
+				+ "  type t = 1;\n"
+				+ "  int g;\n"
+				+ "}";
+		List<SyntaxError> errors = new ArrayList<SyntaxError>();
+		Parser parser = new Parser();
+		parser.setErrorList(errors);
+		parser.parse(new Lexer(new StringReader(src)));
+		
+		// one error per declaration or statement, and none for the valid code in between
+		assertEquals(4, errors.size());
+		assertEquals("2:8: unexpected token 'b'", errors.get(0).toString());
+		assertEquals("4:4: unexpected token ')'", errors.get(1).toString());
+		assertEquals("6:11: unexpected token '+'", errors.get(2).toString());
+		assertEquals("8:11: unexpected token '1'", errors.get(3).toString());
+		
+		errors.clear();
+		parser.parse(new Lexer(new StringReader("module Test { import lib1; int f() { return 1; } }")));
+		assertEquals(0, errors.size());
+		
+		// without an error list, the first error is thrown
+		runtest(src, false);
+	}
 }
@@ -0,0 +1,343 @@
+package ast;
+
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Counts how often the cached attributes with parameters of a tree are evaluated and how
+ * often their cached values are used instead, and times their evaluations; for all cached
+ * attributes, counts the values that are cached and the ones thrown away by
+ * {@link #flushCache(ASTNode)}, per attribute and node type.</p>
+ *
+ * <p>The attributes are generated into the AST classes, which cache the value of an attribute
+ * without parameters in fields named after it (such as {@code decl_computed} and
+ * {@code decl_value}), and the values of an attribute with parameters in a map (such as
+ * {@code lookupVar_String_values}). The profiler finds these fields by reflection, and
+ * {@link #attach(ASTNode)} wraps every such map into one that sees the lookups and insertions
+ * made on it while the compiler runs: a lookup that finds a value is a cache hit, and one that
+ * does not starts an evaluation, which ends when its value is inserted. For these attributes,
+ * evaluations and cache hits are exact, and the time reported is the time from the start to the
+ * end of every evaluation, including the other attributes evaluated meanwhile.</p>
+ *
+ * <p>An attribute without parameters is read and evaluated by generated code that only tests
+ * and sets its flag, so neither can be observed from outside; counting them would take
+ * instrumenting the attribute equations, and their specifications are not part of this tree.
+ * For these attributes, the report only shows how many values are cached when it is made and
+ * how many were flushed through the profiler, and leaves evaluations, cache hits and times
+ * out.</p>
+ *
+ * <p>Only the tree the profiler was last attached to is profiled, and only while it is used by
+ * a single thread; {@link ParallelChecker} checks copies of the program, which are not
+ * profiled. Values cached before the profiler is attached are not counted as evaluations.
+ * Flushing a node directly drops its wrapped maps, so the evaluations of its attributes are
+ * only counted again once the profiler is attached again, and the values flushed are not
+ * counted.</p>
+ */
+public class AttributeProfiler {
+	/** Counts for one attribute on one node type. */
+	private static final class Counts {
+		final String name;
+		long evaluations, hits, cached, flushed, nanos;
+		/** Whether cache hits and times are counted, which they are for attributes with parameters. */
+		boolean observed;
+
+		Counts(String name) {
+			this.name = name;
+		}
+	}
+
+	/** A cached attribute of a node class, and where its cached values are. */
+	private static final class Attribute {
+		final String name;
+		/** Either the flag telling whether the value is cached, or the map of cached values. */
+		final Field computed, values;
+
+		Attribute(String name, Field computed, Field values) {
+			this.name = name;
+			this.computed = computed;
+			this.values = values;
+		}
+	}
+
+	/** An evaluation that has started but not ended yet. */
+	private static final class Evaluation {
+		final CountingMap map;
+		final Object key;
+		final long start;
+
+		Evaluation(CountingMap map, Object key, long start) {
+			this.map = map;
+			this.key = key;
+			this.start = start;
+		}
+	}
+
+	/** Wraps a map of cached attribute values, and counts the lookups that find a value and the insertions. */
+	private final class CountingMap extends AbstractMap<Object, Object> {
+		private final Counts counts;
+		private final Map<Object, Object> values;
+
+		CountingMap(Counts counts, Map<Object, Object> values) {
+			this.counts = counts;
+			this.values = values;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			boolean found = values.containsKey(key);
+			if(found)
+				++counts.hits;
+			else
+				evaluating.push(new Evaluation(this, key, System.nanoTime()));
+			return found;
+		}
+
+		@Override
+		public Object get(Object key) {
+			return values.get(key);
+		}
+
+		@Override
+		public Object put(Object key, Object value) {
+			long end = System.nanoTime();
+			++counts.evaluations;
+			Evaluation evaluation = endEvaluation(this, key);
+			if(evaluation != null)
+				counts.nanos += end - evaluation.start;
+			return values.put(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return values.remove(key);
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return values.entrySet();
+		}
+	}
+
+	/** The cached attributes of the node classes seen so far. */
+	private static final Map<Class<?>, java.util.List<Attribute>> attributes = new HashMap<Class<?>, java.util.List<Attribute>>();
+
+	/** The counts made so far, by node class and attribute name. */
+	private final Map<Class<?>, Map<String, Counts>> counts = new HashMap<Class<?>, Map<String, Counts>>();
+	private ASTNode<?> root;
+	private long flushes;
+	/** The evaluations of attributes with parameters under way, the innermost first. */
+	private final Deque<Evaluation> evaluating = new ArrayDeque<Evaluation>();
+
+	/**
+	 * Starts profiling the given tree, and also the runtime module if the tree is a program.
+	 * Nodes that are added to the tree later, or flushed directly, only have the evaluations of
+	 * their attributes counted if the profiler is attached again; attaching it again to the same
+	 * tree keeps the counts made so far.
+	 */
+	public void attach(ASTNode<?> root) {
+		this.root = root;
+		for(ASTNode<?> node : nodes(root))
+			install(node);
+	}
+
+	/** Flushes the cached attribute values of a node, counting the values that were cached. */
+	public void flushCache(ASTNode<?> node) {
+		++flushes;
+		for(Attribute attribute : attributesOf(node.getClass())) {
+			countsFor(node.getClass(), attribute).flushed += cachedValues(node, attribute);
+		}
+		node.flushCache();
+		install(node);
+	}
+
+	/**
+	 * Writes the counts for all attributes of the profiled tree to the given stream, the
+	 * attributes that took the longest first. Evaluations, cache hits and times that cannot be
+	 * observed are shown as {@code n/a}.
+	 */
+	public void report(PrintStream out) {
+		Map<Counts, Counts> rows = new HashMap<Counts, Counts>();
+		for(Map<String, Counts> byName : counts.values()) {
+			for(Counts live : byName.values()) {
+				Counts row = new Counts(live.name);
+				row.evaluations = live.evaluations;
+				row.hits = live.hits;
+				row.cached = live.cached;
+				row.flushed = live.flushed;
+				row.nanos = live.nanos;
+				row.observed = live.observed;
+				rows.put(live, row);
+			}
+		}
+		if(root != null) {
+			for(ASTNode<?> node : nodes(root)) {
+				for(Attribute attribute : attributesOf(node.getClass())) {
+					Counts live = countsFor(node.getClass(), attribute), row = rows.get(live);
+					if(row == null) {
+						row = new Counts(live.name);
+						row.observed = live.observed;
+						rows.put(live, row);
+					}
+					row.cached += cachedValues(node, attribute);
+				}
+			}
+		}
+
+		java.util.List<Counts> sorted = new ArrayList<Counts>(rows.values());
+		Collections.sort(sorted, new Comparator<Counts>() {
+			@Override
+			public int compare(Counts a, Counts b) {
+				if(a.nanos != b.nanos)
+					return a.nanos < b.nanos ? 1 : -1;
+				return a.name.compareTo(b.name);
+			}
+		});
+		out.printf("%-40s %12s %12s %12s %12s %12s%n", "attribute", "evaluations", "cache hits", "ms", "cached", "flushed");
+		for(Counts row : sorted) {
+			if(row.evaluations != 0 || row.hits != 0 || row.cached != 0 || row.flushed != 0)
+				out.printf(Locale.ROOT, "%-40s %12s %12s %12s %12d %12d%n", row.name,
+						row.observed ? String.valueOf(row.evaluations) : "n/a",
+						row.observed ? String.valueOf(row.hits) : "n/a",
+						row.observed ? String.format(Locale.ROOT, "%.3f", row.nanos / 1e6) : "n/a",
+						row.cached, row.flushed);
+		}
+		out.printf("%d flushCache calls%n", flushes);
+		out.println("n/a: reading or evaluating an attribute without parameters cannot be observed without instrumenting its equation");
+		out.println("ms: time from each cache miss until the value was cached, including the attributes evaluated meanwhile");
+		out.println("cached: values cached now; flushed: values flushed through AttributeProfiler.flushCache");
+	}
+
+	/**
+	 * Removes the evaluation of the given key in the given map from the evaluations under way,
+	 * together with the ones started after it, which were left by an exception; returns it, or
+	 * {@code null} if it is not under way.
+	 */
+	private Evaluation endEvaluation(CountingMap map, Object key) {
+		for(Evaluation evaluation : evaluating) {
+			if(evaluation.map == map && (key == null ? evaluation.key == null : key.equals(evaluation.key))) {
+				while(evaluating.peek() != evaluation)
+					evaluating.pop();
+				return evaluating.pop();
+			}
+		}
+		return null;
+	}
+
+	/** Returns the nodes of the given tree, and of the runtime module if the tree is a program. */
+	private static java.util.List<ASTNode<?>> nodes(ASTNode<?> root) {
+		java.util.List<ASTNode<?>> nodes = new ArrayList<ASTNode<?>>();
+		Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+		pending.push(root);
+		if(root instanceof Program)
+			pending.push(((Program)root).runtimeModule());
+		while(!pending.isEmpty()) {
+			ASTNode<?> node = pending.pop();
+			nodes.add(node);
+			for(int i = 0; i < node.getNumChildNoTransform(); ++i)
+				if(node.getChildNoTransform(i) != null)
+					pending.push(node.getChildNoTransform(i));
+		}
+		return nodes;
+	}
+
+	/** Puts a counting map into every map of cached values of the given node that does not have one yet. */
+	private void install(ASTNode<?> node) {
+		for(Attribute attribute : attributesOf(node.getClass())) {
+			if(attribute.values != null && !isCounting(node, attribute)) {
+				Counts counts = countsFor(node.getClass(), attribute);
+				counts.observed = true;
+				@SuppressWarnings("unchecked")
+				Map<Object, Object> values = (Map<Object, Object>)read(attribute.values, node);
+				write(attribute.values, node, new CountingMap(counts, values == null ? new HashMap<Object, Object>(4) : values));
+			}
+		}
+	}
+
+	private boolean isCounting(ASTNode<?> node, Attribute attribute) {
+		return attribute.values != null && read(attribute.values, node) instanceof CountingMap;
+	}
+
+	private Counts countsFor(Class<?> type, Attribute attribute) {
+		Map<String, Counts> byName = counts.get(type);
+		if(byName == null)
+			counts.put(type, byName = new HashMap<String, Counts>());
+		Counts result = byName.get(attribute.name);
+		if(result == null)
+			byName.put(attribute.name, result = new Counts(type.getSimpleName() + "." + attribute.name));
+		return result;
+	}
+
+	/** Returns the number of values of the given attribute cached in the given node. */
+	private static long cachedValues(ASTNode<?> node, Attribute attribute) {
+		if(attribute.computed != null)
+			return (Boolean)read(attribute.computed, node) ? 1 : 0;
+		Object values = read(attribute.values, node);
+		if(values instanceof CountingMap)
+			values = ((CountingMap)values).values;
+		return values == null ? 0 : ((Map<?, ?>)values).size();
+	}
+
+	/** Returns the cached attributes of a node class, the ones declared in subclasses taking precedence. */
+	private static java.util.List<Attribute> attributesOf(Class<?> type) {
+		synchronized(attributes) {
+			java.util.List<Attribute> result = attributes.get(type);
+			if(result != null)
+				return result;
+			result = new ArrayList<Attribute>();
+			Set<String> seen = new HashSet<String>();
+			for(Class<?> declaring = type; declaring != Object.class; declaring = declaring.getSuperclass()) {
+				for(Field field : declaring.getDeclaredFields()) {
+					String name = field.getName();
+					if(name.endsWith("_computed") && field.getType() == boolean.class) {
+						name = name.substring(0, name.length() - "_computed".length());
+						if(seen.add(name))
+							result.add(attribute(name, field, null));
+					} else if(name.endsWith("_values") && Map.class.isAssignableFrom(field.getType())) {
+						String[] parts = name.substring(0, name.length() - "_values".length()).split("_");
+						StringBuilder display = new StringBuilder(parts[0]).append('(');
+						for(int i = 1; i < parts.length; ++i)
+							display.append(i > 1 ? ", " : "").append(parts[i]);
+						if(seen.add(parts[0]))
+							result.add(attribute(display.append(')').toString(), null, field));
+					}
+				}
+			}
+			attributes.put(type, result);
+			return result;
+		}
+	}
+
+	private static Attribute attribute(String name, Field computed, Field values) {
+		for(Field field : new Field[] { computed, values })
+			if(field != null)
+				field.setAccessible(true);
+		return new Attribute(name, computed, values);
+	}
+
+	private static Object read(Field field, Object node) {
+		try {
+			return field.get(node);
+		} catch(IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void write(Field field, Object node, Object value) {
+		try {
+			field.set(node, value);
+		} catch(IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
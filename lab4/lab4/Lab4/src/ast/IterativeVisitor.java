@@ -0,0 +1,165 @@
+package ast;
+
+import java.util.Arrays;
+
+/**
+ *  <p>A visitor that can be applied to a tree without using a Java stack frame for every level
+ *  of nesting. {@link #traverse(ASTNode)} keeps the nodes it still has to visit on a stack of
+ *  its own, so the depth of the trees it can handle is bounded by the heap rather than by the
+ *  thread stack; deeply nested trees such as long chains of additions do not overflow it.
+ *  Recursive dispatch is considerably faster on the shallow trees most programs consist of, so
+ *  {@link #apply(ASTNode)} visits a tree recursively, and only continues with the explicit stack
+ *  where it is nested more than {@link #MAX_RECURSION_DEPTH} levels deep.</p>
+ *
+ *  <p>A traversal visits every node after its children, and the children from left to right.
+ *  Visitor methods must therefore obtain the values of child nodes through {@link #valueOf(ASTNode)}
+ *  rather than calling {@link ASTNode#accept(Visitor)} on them, and must not rely on doing any
+ *  work before their children are visited. The elements of a {@link List} or an {@link Opt} count
+ *  as children of the node the list belongs to as well. Outside of a traversal,
+ *  {@link #valueOf(ASTNode)} simply visits the child, so the same visitor can still be applied
+ *  recursively.</p>
+ */
+public class IterativeVisitor<A> extends Visitor<A> {
+	/** How many levels of a tree {@link #apply(ASTNode)} visits recursively before using the explicit stack. */
+	public static final int MAX_RECURSION_DEPTH = 500;
+
+	/**
+	 * The values of the nodes visited so far whose parent has not been visited yet, in the order
+	 * they were visited, and the nodes they belong to.
+	 */
+	private Object[] values = new Object[16];
+	private ASTNode<?>[] valueNodes = new ASTNode<?>[16];
+	private int valueCount;
+
+	/** The node being visited by a traversal, or {@code null} outside of one. */
+	private ASTNode<?> visiting;
+	/** Where the values of the children of the node being visited start, and where to look for the next one. */
+	private int childValues, nextValue;
+
+	/** How many levels deep the visitor is in recursive dispatch through {@link #valueOf(ASTNode)}. */
+	private int depth;
+
+	/**
+	 * Visits the given tree and returns the value of its root: recursively, as
+	 * {@link ASTNode#accept(Visitor)} does, down to {@link #MAX_RECURSION_DEPTH} levels, and
+	 * with {@link #traverse(ASTNode)} for the subtrees below.
+	 */
+	public A apply(ASTNode<?> root) {
+		return root.accept(this);
+	}
+
+	/** Visits the given tree bottom-up, and returns the value of its root. */
+	public A traverse(ASTNode<?> root) {
+		// a traversal may be started while visiting a node of another one, whose state is kept
+		ASTNode<?> outerVisiting = visiting;
+		int outerChildValues = childValues, outerNextValue = nextValue, base = valueCount;
+		ASTNode<?>[] nodes = new ASTNode<?>[16];
+		int[] next = new int[16], firstValue = new int[16];
+		int top = 0;
+		nodes[0] = root;
+		firstValue[0] = base;
+		try {
+			for(;;) {
+				ASTNode<?> node = nodes[top];
+				int child = next[top];
+				if(child < node.getNumChild()) {
+					next[top] = child + 1;
+					if(++top == nodes.length) {
+						nodes = Arrays.copyOf(nodes, 2 * top);
+						next = Arrays.copyOf(next, 2 * top);
+						firstValue = Arrays.copyOf(firstValue, 2 * top);
+					}
+					nodes[top] = node.getChild(child);
+					next[top] = 0;
+					firstValue[top] = valueCount;
+				} else {
+					visiting = node;
+					childValues = nextValue = firstValue[top];
+					A value = node.accept(this);
+					nodes[top--] = null;
+					if(top < 0)
+						return value;
+					// the values of the elements of a list stay around for the list's parent
+					if(!(node instanceof List || node instanceof Opt))
+						dropValues(firstValue[top + 1]);
+					pushValue(node, visited(node, value));
+				}
+			}
+		} finally {
+			dropValues(base);
+			visiting = outerVisiting;
+			childValues = outerChildValues;
+			nextValue = outerNextValue;
+		}
+	}
+
+	/**
+	 * Returns the value of a child of the node being visited. During a traversal this is the
+	 * value the child was visited to; otherwise, the child is visited now, recursively unless
+	 * that would go deeper than {@link #MAX_RECURSION_DEPTH}, and handed to
+	 * {@link #visited(ASTNode, Object)}.
+	 */
+	@SuppressWarnings("unchecked")
+	protected A valueOf(ASTNode<?> child) {
+		if(visiting != null && isChild(child)) {
+			// children are mostly asked for in order, so start looking after the last one
+			for(int i = nextValue; i < valueCount; ++i) {
+				if(valueNodes[i] == child) {
+					nextValue = i + 1;
+					return (A)values[i];
+				}
+			}
+			for(int i = childValues; i < nextValue && i < valueCount; ++i) {
+				if(valueNodes[i] == child) {
+					nextValue = i + 1;
+					return (A)values[i];
+				}
+			}
+		}
+		if(depth >= MAX_RECURSION_DEPTH)
+			return visited(child, traverse(child));
+		// visit recursively, outside of any traversal
+		ASTNode<?> outerVisiting = visiting;
+		visiting = null;
+		++depth;
+		try {
+			return visited(child, child.accept(this));
+		} finally {
+			--depth;
+			visiting = outerVisiting;
+		}
+	}
+
+	/** Determines whether the given node is a child of the node being visited, or an element of a list that is. */
+	private boolean isChild(ASTNode<?> node) {
+		ASTNode<?> parent = node.getParent();
+		return parent == visiting || (parent instanceof List || parent instanceof Opt) && parent.getParent() == visiting;
+	}
+
+	/**
+	 * Called with the value a node other than the root was visited to, before any of the nodes
+	 * to its right are: during a traversal for every node, and otherwise for every node whose
+	 * value is asked for through {@link #valueOf(ASTNode)}. Returns the value to hand to the
+	 * parent. This lets a visitor do work that would otherwise happen only when the parent uses
+	 * the value. The default implementation returns the value unchanged.
+	 */
+	protected A visited(ASTNode<?> node, A value) {
+		return value;
+	}
+
+	private void pushValue(ASTNode<?> node, A value) {
+		if(valueCount == values.length) {
+			values = Arrays.copyOf(values, 2 * valueCount);
+			valueNodes = Arrays.copyOf(valueNodes, 2 * valueCount);
+		}
+		valueNodes[valueCount] = node;
+		values[valueCount++] = value;
+	}
+
+	private void dropValues(int count) {
+		while(valueCount > count) {
+			valueNodes[--valueCount] = null;
+			values[valueCount] = null;
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs name analysis, type checking and flow checking on the functions and other declarations
+ * of a program concurrently, and reports the errors to the program in the same order as calling
+ * {@link Program#namecheck()}, {@link Program#typecheck()} and {@link Program#flowcheck()} one
+ * after the other would.
+ *
+ * Attributes cache their values in the nodes they are evaluated on, and evaluating an attribute
+ * on one module may evaluate attributes on the modules it imports, so the program itself cannot
+ * be checked from several threads. Instead, every thread that takes part in a check works on
+ * a copy of the program of its own. The copies hold all modules and declarations, since checking
+ * a function involves the declarations it refers to, but only the body of the function being
+ * checked; this way, every body is copied once, whichever thread checks it. The attribute
+ * values computed by the checks end up in the copies, not in the program. Names are resolved
+ * in the copies through a {@link ScopeIndex}, and the copies get their runtime module from the
+ * {@link RuntimeModuleCache}.
+ *
+ * The type descriptors for the built-in types and for Java types, and the array types built from
+ * them, are created once and shared by all programs; even attributes that are not cached mark the
+ * descriptor they are evaluated on while they are, so two threads must never evaluate attributes
+ * on the same descriptor. Every copy therefore has {@link Descriptors} of its own, which stand in
+ * for the shared ones in all types computed in the copy. Before the copies are made, the Java
+ * types used anywhere in the program are looked up on the calling thread, so that the checks
+ * only ever read the table of Java types; this also parses any function bodies that have not
+ * been parsed yet.
+ *
+ * This class lives in package {@code ast} since the errors found in the copies are reported to
+ * the program through {@link Program#error(String, int, int)}.
+ */
+public class ParallelChecker {
+	/** Pool used by checkers that were not given one; its threads do not keep the JVM alive. */
+	private static class DefaultPool {
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+			new ThreadFactory() {
+				private final ThreadFactory factory = Executors.defaultThreadFactory();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = factory.newThread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	}
+
+	/** Indices of the three checks, in the order their errors are reported. */
+	private static final int NAMES = 0, TYPES = 1, FLOW = 2;
+
+	/** Number of batches of declarations per thread; more batches balance better, fewer cost less to hand out. */
+	private static final int BATCHES_PER_THREAD = 4;
+
+	private final ExecutorService executor;
+	private final int threads;
+
+	/** Creates a checker that checks on a shared pool with one thread per available processor. */
+	public ParallelChecker() {
+		this(DefaultPool.INSTANCE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a checker that checks on the given executor, which is expected to run about the
+	 * given number of tasks at the same time; the caller remains responsible for shutting it down.
+	 */
+	public ParallelChecker(ExecutorService executor, int threads) {
+		this.executor = executor;
+		this.threads = threads;
+	}
+
+	/** An error found in a copy of the program. */
+	private static final class Report {
+		final String message;
+		final int line, column;
+
+		Report(String message, int line, int column) {
+			this.message = message;
+			this.line = line;
+			this.column = column;
+		}
+	}
+
+	/**
+	 * A part of a module that can be checked on its own: either a single declaration, or the
+	 * imports of the module, whose index is then -1. Collects the errors of each check.
+	 */
+	private static final class Unit {
+		final int module, declaration;
+		final java.util.List<java.util.List<Report>> reports = new ArrayList<java.util.List<Report>>(FLOW + 1);
+
+		Unit(int module, int declaration) {
+			this.module = module;
+			this.declaration = declaration;
+			for(int check = NAMES; check <= FLOW; ++check)
+				reports.add(new ArrayList<Report>());
+		}
+	}
+
+	/**
+	 * <p>The type descriptors of one copy of the program. The types of literals, of operators with
+	 * a fixed result type and of type names are computed from the shared descriptors; they are
+	 * evaluated as soon as a node is part of the copy, and replaced with the descriptors of the copy
+	 * for the same types. All other types are computed from these, so nothing the checks evaluate
+	 * in the copy leads back to a shared descriptor.</p>
+	 *
+	 * <p>The replacement writes the fields in which the generated code caches {@code type()} and
+	 * {@code getDescriptor()} ({@code type_value} and {@code getDescriptor_value}), so it depends
+	 * on these attributes being cached under these names; {@code testParallelChecker} fails if
+	 * they are not. It costs one more pass over the signatures of each copy and over every body
+	 * copied, evaluating these attributes on every node.</p>
+	 *
+	 * <p>A type therefore has one descriptor per copy in addition to the shared one, and the
+	 * descriptors of a copy must not be compared with, or converted like, those of the program:
+	 * {@link backend.SootTypeUtil} relies on there being a single descriptor per type. None of the
+	 * attribute values computed in the copies are kept, so generating code for the program
+	 * afterwards evaluates all of them again on the program itself.</p>
+	 */
+	private static final class Descriptors {
+		private final IntType intType = new IntType();
+		private final BooleanType booleanType = new BooleanType();
+		private final VoidType voidType = new VoidType();
+		private final Map<String, JavaType> javaTypes = new HashMap<String, JavaType>();
+
+		/** Returns the descriptor of this copy for the same type as the given shared descriptor. */
+		TypeDescriptor get(TypeDescriptor shared) {
+			if(shared == null)
+				return null;
+			if(shared == TypeDescriptor.INT)
+				return intType;
+			if(shared == TypeDescriptor.BOOLEAN)
+				return booleanType;
+			if(shared == TypeDescriptor.VOID)
+				return voidType;
+			if(shared instanceof ArrayType)
+				return get(((ArrayType)shared).getElementType()).arrayType();
+			String name = ((JavaType)shared).getName();
+			JavaType type = javaTypes.get(name);
+			if(type == null)
+				javaTypes.put(name, type = new JavaType(name));
+			return type;
+		}
+
+		/** Makes the nodes in the given tree whose type is one of the shared descriptors use those of this copy. */
+		void replaceIn(ASTNode<?> root) {
+			Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+			pending.push(root);
+			while(!pending.isEmpty()) {
+				ASTNode<?> node = pending.pop();
+				if(node instanceof IntLiteral) {
+					IntLiteral literal = (IntLiteral)node;
+					literal.type_value = get(literal.type());
+				} else if(node instanceof BooleanLiteral) {
+					BooleanLiteral literal = (BooleanLiteral)node;
+					literal.type_value = get(literal.type());
+				} else if(node instanceof StringLiteral) {
+					StringLiteral literal = (StringLiteral)node;
+					literal.type_value = get(literal.type());
+				} else if(node instanceof CompExpr) {
+					CompExpr expr = (CompExpr)node;
+					expr.type_value = get(expr.type());
+				} else if(node instanceof BinaryExpr) {
+					BinaryExpr expr = (BinaryExpr)node;
+					expr.type_value = get(expr.type());
+				} else if(node instanceof NegExpr) {
+					NegExpr expr = (NegExpr)node;
+					expr.type_value = get(expr.type());
+				} else if(node instanceof IntTypeName) {
+					IntTypeName name = (IntTypeName)node;
+					name.getDescriptor_value = get(name.getDescriptor());
+				} else if(node instanceof BooleanTypeName) {
+					BooleanTypeName name = (BooleanTypeName)node;
+					name.getDescriptor_value = get(name.getDescriptor());
+				} else if(node instanceof VoidTypeName) {
+					VoidTypeName name = (VoidTypeName)node;
+					name.getDescriptor_value = get(name.getDescriptor());
+				} else if(node instanceof JavaTypeName) {
+					JavaTypeName name = (JavaTypeName)node;
+					name.getDescriptor_value = get(name.getDescriptor());
+				} else if(node instanceof UserTypeName) {
+					UserTypeName name = (UserTypeName)node;
+					name.getDescriptor_value = get(name.getDescriptor());
+				}
+				for(int i = 0; i < node.getNumChild(); ++i)
+					pending.push(node.getChild(i));
+			}
+		}
+	}
+
+	/**
+	 * A copy of the program, used by one thread at a time, which records the errors found in it.
+	 * It starts out with all declarations but without function bodies; the body of a function is
+	 * copied when the function is checked, and dropped again afterwards.
+	 */
+	private static final class Copy extends Program {
+		private final Program program;
+		private final Descriptors descriptors = new Descriptors();
+		private java.util.List<Report> reports;
+
+		Copy(Program program) {
+			super(copySignatures(program));
+			this.program = program;
+			RuntimeModuleCache.install(this);
+			ScopeIndex.index(this);
+			descriptors.replaceIn(this);
+			descriptors.replaceIn(runtimeModule());
+		}
+
+		private static List<Module> copySignatures(Program program) {
+			List<Module> modules = new List<Module>();
+			for(Module module : program.getModules()) {
+				Module copy = module.copy();
+				copy.setImportList(module.getImportList().fullCopy());
+				List<Declaration> declarations = new List<Declaration>();
+				for(Declaration declaration : module.getDeclarations()) {
+					if(declaration instanceof FunctionDeclaration) {
+						FunctionDeclaration function = (FunctionDeclaration)declaration, signature = function.copy();
+						signature.setAccessibility(function.getAccessibility().fullCopy());
+						signature.setReturnType((TypeName)function.getReturnType().fullCopy());
+						signature.setParameterList(function.getParameterList().fullCopy());
+						signature.setBody(new Block());
+						declarations.add(signature);
+					} else {
+						declarations.add((Declaration)declaration.fullCopy());
+					}
+				}
+				copy.setDeclarationList(declarations);
+				modules.add(copy);
+			}
+			return modules;
+		}
+
+		@Override
+		protected void error(String message, int line, int column) {
+			reports.add(new Report(message, line, column));
+		}
+
+		void check(Unit unit) {
+			Module module = getModule(unit.module);
+			for(java.util.List<Report> list : unit.reports)
+				list.clear();
+			if(unit.declaration < 0) {
+				// the first half of Module.namecheck(); the second half checks the declarations
+				reports = unit.reports.get(NAMES);
+				Set<String> imported = new HashSet<String>();
+				for(Import imp : module.getImports()) {
+					imp.namecheck();
+					if(!imported.add(imp.getQualifiedName()))
+						module.error("Multiple imports of module " + imp.getQualifiedName());
+				}
+			} else {
+				Declaration declaration = module.getDeclaration(unit.declaration);
+				Declaration original = program.getModule(unit.module).getDeclaration(unit.declaration);
+				if(declaration instanceof FunctionDeclaration) {
+					Block body = ((FunctionDeclaration)original).getBody().fullCopy();
+					((FunctionDeclaration)declaration).setBody(body);
+					ScopeIndex.index(body);
+					descriptors.replaceIn(body);
+				}
+				reports = unit.reports.get(NAMES);
+				declaration.namecheck();
+				reports = unit.reports.get(TYPES);
+				declaration.typecheck();
+				reports = unit.reports.get(FLOW);
+				declaration.flowcheck();
+				if(declaration instanceof FunctionDeclaration)
+					((FunctionDeclaration)declaration).setBody(new Block());
+			}
+			reports = null;
+		}
+	}
+
+	/** Checks the given program, and reports the errors found to it. */
+	public void check(final Program program) throws InterruptedException {
+		RuntimeModuleCache.install(program);
+		resolveTypes(program);
+
+		final java.util.List<Unit> units = new ArrayList<Unit>();
+		for(int i = 0; i < program.getNumModule(); ++i) {
+			units.add(new Unit(i, -1));
+			for(int j = 0; j < program.getModule(i).getNumDeclaration(); ++j)
+				units.add(new Unit(i, j));
+		}
+
+		// copies that are not in use by any batch right now
+		final Queue<Copy> idle = new ConcurrentLinkedQueue<Copy>();
+		int batches = Math.min(units.size(), threads * BATCHES_PER_THREAD);
+		java.util.List<Future<Void>> futures = new ArrayList<Future<Void>>(batches);
+		try {
+			for(int batch = 0; batch < batches; ++batch) {
+				final int from = (int)((long)units.size() * batch / batches), to = (int)((long)units.size() * (batch + 1) / batches);
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						Copy copy = idle.poll();
+						if(copy == null)
+							copy = new Copy(program);
+						for(Unit unit : units.subList(from, to))
+							copy.check(unit);
+						idle.add(copy);
+						return null;
+					}
+				}));
+			}
+			for(Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch(ExecutionException e) {
+					if(e.getCause() instanceof RuntimeException)
+						throw (RuntimeException)e.getCause();
+					if(e.getCause() instanceof Error)
+						throw (Error)e.getCause();
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		} finally {
+			// only has an effect if we were interrupted while waiting, or a batch failed
+			for(Future<Void> future : futures)
+				future.cancel(true);
+		}
+
+		// report the errors as Program.namecheck(), typecheck() and flowcheck() would
+		Set<String> names = new HashSet<String>();
+		names.add(program.runtimeModule().getQualifiedName());
+		for(int check = NAMES; check <= FLOW; ++check) {
+			int next = 0;
+			for(int i = 0; i < program.getNumModule(); ++i) {
+				if(check == NAMES && !names.add(program.getModule(i).getQualifiedName()))
+					program.error("Multiple modules with name " + program.getModule(i).getQualifiedName());
+				for(; next < units.size() && units.get(next).module == i; ++next)
+					for(Report report : units.get(next).reports.get(check))
+						program.error(report.message, report.line, report.column);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the descriptor of every Java type used in the program or in the runtime module,
+	 * which adds it to the table of Java types in {@link TypeDescriptor}: the descriptors of all
+	 * type names, and the type of string literals.
+	 */
+	private static void resolveTypes(Program program) {
+		Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+		pending.push(program);
+		pending.push(program.runtimeModule());
+		while(!pending.isEmpty()) {
+			ASTNode<?> node = pending.pop();
+			if(node instanceof TypeName)
+				((TypeName)node).getDescriptor();
+			else if(node instanceof StringLiteral)
+				((StringLiteral)node).type();
+			for(int i = 0; i < node.getNumChild(); ++i)
+				pending.push(node.getChild(i));
+		}
+	}
+}
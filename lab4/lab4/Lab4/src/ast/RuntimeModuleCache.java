@@ -0,0 +1,32 @@
+package ast;
+
+/**
+ * Provides programs with the implicit runtime module without building it anew for every
+ * program. {@link Program#runtimeModule()} builds the module by reflection over the methods of
+ * class {@code runtime.Runtime}; this is done once per class loader instead, and every program
+ * gets a copy of the result, which is much cheaper to make.
+ *
+ * The module cannot be shared by the programs themselves, as a module belongs to a single
+ * program and caches attribute values evaluated in it. The cached module is never part of a
+ * program, so no attributes are ever evaluated on it, and copying it only reads it; it can
+ * therefore be copied from several threads at once.
+ */
+public class RuntimeModuleCache {
+	/** Built on first use. */
+	private static class Holder {
+		static final Module MODULE = new Program(new List<Module>()).runtimeModule().fullCopy();
+	}
+
+	/**
+	 * Gives the given program a copy of the cached runtime module, unless it has already built
+	 * its runtime module; afterwards, {@link Program#runtimeModule()} returns the copy.
+	 */
+	public static void install(Program program) {
+		if(program.runtimeModule_computed)
+			return;
+		Module module = Holder.MODULE.fullCopy();
+		program.runtimeModule_value = module;
+		program.runtimeModule_computed = true;
+		module.setParent(program);
+	}
+}
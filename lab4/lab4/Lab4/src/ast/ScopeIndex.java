@@ -0,0 +1,191 @@
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Builds hashed indices of the names declared in modules and blocks, so that name analysis
+ * resolves a name in constant time on average instead of searching the declarations for it.</p>
+ *
+ * <p>The lookup attributes search the declarations of a module, or the statements of a block
+ * preceding a use, one by one. Their results are cached per name in the node they are evaluated
+ * on, so every distinct name looked up in a module costs a search through all of its
+ * declarations, and every use of a variable in a block a search through the statements before
+ * it; both grow quadratically with the number of declarations. The index fills these caches
+ * with the results the searches would have: for each module, the first field, type and function
+ * declared with each name, and for the program, the module with each name. A module looks up
+ * the names it does not declare in the modules it imports and in the runtime module, through
+ * their caches, so each of these caches also gets the names used in the module that the
+ * module owning the cache does not declare, with no declaration. Uses of variables are resolved
+ * in one pass over each function body, keeping the names declared so far in each enclosing
+ * block; a name not declared in any of them is looked up in the body once per body.</p>
+ *
+ * <p>The caches only hold names that are declared or used, so a name looked up in any other
+ * way is still searched for by the attribute. Like any cached attribute value, the index is
+ * dropped by {@link ASTNode#flushCache()}, after which names are searched for again.</p>
+ */
+public class ScopeIndex {
+	/** Marks the end of a block in the traversal of a function body. */
+	private static final Object END_OF_BLOCK = new Object();
+
+	/**
+	 * Indexes the modules of the given program and the runtime module, and the program itself.
+	 * The names used in the modules are added once all modules are indexed, as they go into the
+	 * caches of the imported modules, and the bodies of functions are indexed last, as resolving
+	 * the names they do not declare looks them up in the modules.
+	 */
+	public static void index(Program program) {
+		Map<String, Module> modules = new HashMap<String, Module>();
+		java.util.List<Module> all = new ArrayList<Module>();
+		for(Module module : program.getModules())
+			all.add(module);
+		Module runtime = program.runtimeModule();
+		all.add(runtime);
+		for(Module module : all) {
+			declare(modules, module.getQualifiedName(), module);
+			indexDeclarations(module);
+		}
+		program.resolveModule_String_values = modules;
+		for(Module module : all) {
+			java.util.List<Module> searched = new ArrayList<Module>();
+			searched.add(module);
+			for(Import imported : module.getImports())
+				if(imported.resolve() != null)
+					searched.add(imported.resolve());
+			searched.add(runtime);
+			indexUses(module, searched);
+		}
+		for(Module module : all)
+			indexBodies(module);
+	}
+
+	/**
+	 * Indexes the declarations of the given module and the bodies of its functions. The names
+	 * the module uses but does not declare are only added to its own caches; the modules it
+	 * imports are left as they are.
+	 */
+	public static void index(Module module) {
+		indexDeclarations(module);
+		indexUses(module, Collections.singletonList(module));
+		indexBodies(module);
+	}
+
+	/** Adds a declaration unless one with the same name came before it. */
+	private static <T> void declare(Map<String, T> declarations, String name, T declaration) {
+		if(!declarations.containsKey(name))
+			declarations.put(name, declaration);
+	}
+
+	private static void indexDeclarations(Module module) {
+		Map<String, FieldDeclaration> fields = new HashMap<String, FieldDeclaration>();
+		Map<String, TypeDeclaration> types = new HashMap<String, TypeDeclaration>();
+		Map<String, FunctionDeclaration> functions = new HashMap<String, FunctionDeclaration>();
+		for(Declaration declaration : module.getDeclarations()) {
+			if(declaration instanceof FieldDeclaration)
+				declare(fields, ((FieldDeclaration)declaration).getVarDecl().getName(), (FieldDeclaration)declaration);
+			else if(declaration instanceof TypeDeclaration)
+				declare(types, ((TypeDeclaration)declaration).getName(), (TypeDeclaration)declaration);
+			else if(declaration instanceof FunctionDeclaration)
+				declare(functions, ((FunctionDeclaration)declaration).getName(), (FunctionDeclaration)declaration);
+		}
+		module.lookupLocalField_String_values = fields;
+		module.lookupLocalType_String_values = types;
+		module.lookupLocalFunction_String_values = functions;
+	}
+
+	/**
+	 * Adds the names of the variables, functions and types used in the given module to the
+	 * caches of the given modules that do not declare them, which is where the module searches
+	 * for them. The modules must have been indexed.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void indexUses(Module module, java.util.List<Module> searched) {
+		Set<String> fields = new HashSet<String>(), types = new HashSet<String>(), functions = new HashSet<String>();
+		Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+		pending.push(module);
+		while(!pending.isEmpty()) {
+			ASTNode<?> node = pending.pop();
+			if(node instanceof VarName)
+				fields.add(((VarName)node).getName());
+			else if(node instanceof FunctionName)
+				functions.add(((FunctionName)node).getName());
+			else if(node instanceof UserTypeName)
+				types.add(((UserTypeName)node).getName());
+			for(int i = node.getNumChild() - 1; i >= 0; --i)
+				pending.push(node.getChild(i));
+		}
+		for(Module other : searched) {
+			undeclared(other.lookupLocalField_String_values, fields);
+			undeclared(other.lookupLocalType_String_values, types);
+			undeclared(other.lookupLocalFunction_String_values, functions);
+		}
+	}
+
+	/** Adds the given names to a cache that does not have them yet, as not declared. */
+	private static void undeclared(Map<Object, Object> cache, Set<String> names) {
+		for(String name : names)
+			if(!cache.containsKey(name))
+				cache.put(name, null);
+	}
+
+	private static void indexBodies(Module module) {
+		for(Declaration declaration : module.getDeclarations())
+			if(declaration instanceof FunctionDeclaration)
+				index(((FunctionDeclaration)declaration).getBody());
+	}
+
+	/**
+	 * Resolves the uses of variables in the given block. A block only sees the variables
+	 * declared by statements directly inside it and before the statement containing the use,
+	 * so the declarations are collected while going through the statements in order. Every use
+	 * gets a cache of its own holding the declaration of its name; other names looked up on the
+	 * use are searched for as usual.
+	 */
+	public static void index(Block body) {
+		// the variables declared so far in each enclosing block, innermost last
+		java.util.List<Map<String, VarDecl>> scopes = new ArrayList<Map<String, VarDecl>>();
+		// the declarations of the names not declared in the body, as seen from the body
+		Map<String, VarDecl> outer = new HashMap<String, VarDecl>();
+		Deque<Object> pending = new ArrayDeque<Object>();
+		pending.push(body);
+		while(!pending.isEmpty()) {
+			Object next = pending.pop();
+			if(next == END_OF_BLOCK) {
+				scopes.remove(scopes.size() - 1);
+				continue;
+			}
+			ASTNode<?> node = (ASTNode<?>)next;
+			if(node instanceof Block) {
+				scopes.add(new HashMap<String, VarDecl>());
+				pending.push(END_OF_BLOCK);
+			} else if(node instanceof VarDeclStmt && node.getParent().getParent() instanceof Block) {
+				VarDecl decl = ((VarDeclStmt)node).getVarDecl();
+				Map<String, VarDecl> scope = scopes.get(scopes.size() - 1);
+				if(!scope.containsKey(decl.getName()))
+					scope.put(decl.getName(), decl);
+			} else if(node instanceof VarName) {
+				VarName use = (VarName)node;
+				String name = use.getName();
+				VarDecl decl = null;
+				for(int i = scopes.size() - 1; decl == null && i >= 0; --i)
+					decl = scopes.get(i).get(name);
+				if(decl == null) {
+					if(!outer.containsKey(name))
+						outer.put(name, body.lookupVar(name));
+					decl = outer.get(name);
+				}
+				Map<String, VarDecl> lookup = new HashMap<String, VarDecl>(4);
+				lookup.put(name, decl);
+				use.lookupVar_String_values = lookup;
+			}
+			for(int i = node.getNumChild() - 1; i >= 0; --i)
+				pending.push(node.getChild(i));
+		}
+	}
+}
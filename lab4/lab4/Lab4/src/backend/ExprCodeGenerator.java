@@ -16,6 +16,7 @@ import soot.jimple.NopStmt;
 import soot.jimple.StaticInvokeExpr;
 import soot.jimple.StringConstant;
 import soot.util.Chain;
+import ast.ASTNode;
 import ast.AddExpr;
 import ast.ArrayIndex;
 import ast.ArrayLiteral;
@@ -31,6 +32,7 @@ import ast.FunctionDeclaration;
 import ast.GeqExpr;
 import ast.GtExpr;
 import ast.IntLiteral;
+import ast.IterativeVisitor;
 import ast.LeqExpr;
 import ast.LtExpr;
 import ast.ModExpr;
@@ -48,8 +50,12 @@ import ast.Visitor;
 /**
  * This class is in charge of creating Jimple code for a given expression (and its nested
  * expressions, if applicable).
+ * 
+ * Expressions are visited recursively, and with an explicit stack where they are nested deeper
+ * than {@link IterativeVisitor#MAX_RECURSION_DEPTH} (see {@link IterativeVisitor#apply(ASTNode)}),
+ * so that deeply nested expressions do not overflow the Java stack.
  */
-public class ExprCodeGenerator extends Visitor<Value> {
+public class ExprCodeGenerator extends IterativeVisitor<Value> {
 	/** The {@link FunctionCodeGenerator} that instantiated this object. */
 	private final FunctionCodeGenerator fcg;
 	
@@ -81,15 +87,28 @@ public class ExprCodeGenerator extends Visitor<Value> {
 	 */
 	public static Value generate(Expr expr, FunctionCodeGenerator fcg) {
 		ExprCodeGenerator gen = new ExprCodeGenerator(fcg);
-		return gen.wrap(expr.accept(gen));
+		return gen.wrap(gen.apply(expr));
+	}
+	
+	/**
+	 * Operands are wrapped as soon as code for them has been generated, before code for the
+	 * operands to their right, just as if the parent had generated them itself; otherwise
+	 * reading an array element or a field could move past a call that changes it.
+	 */
+	@Override
+	protected Value visited(ASTNode<?> node, Value value) {
+		// the left hand side of an assignment must not be wrapped, see visitAssignment
+		if(node.getParent() instanceof Assignment && ((Assignment)node.getParent()).getLHS() == node)
+			return value;
+		return wrap(value);
 	}
 	
 	/** Generate code for an assignment. */
 	@Override
 	public Value visitAssignment(Assignment nd) {
 		// note that the left hand side should _not_ be wrapped!
-		Value lhs = nd.getLHS().accept(this),
-			  rhs = wrap(nd.getRHS().accept(this));
+		Value lhs = valueOf(nd.getLHS()),
+			  rhs = wrap(valueOf(nd.getRHS()));
 		units.add(Jimple.v().newAssignStmt(lhs, rhs));
 		return rhs;
 	}
@@ -131,7 +150,7 @@ public class ExprCodeGenerator extends Visitor<Value> {
 		Value array = wrap(Jimple.v().newNewArrayExpr(elttp, IntConstant.v(nd.getNumElement())));
 		for(int i=0;i<nd.getNumElement();++i) {
 			// generate code to store the individual expressions into the elements of the array
-			Value elt = wrap(nd.getElement(i).accept(this));
+			Value elt = wrap(valueOf(nd.getElement(i)));
 			units.add(Jimple.v().newAssignStmt(Jimple.v().newArrayRef(array, IntConstant.v(i)), elt));
 		}
 		return array;
@@ -141,8 +160,8 @@ public class ExprCodeGenerator extends Visitor<Value> {
 	@Override
 	public Value visitArrayIndex(ArrayIndex nd) {
 		/* TODO: generate code for array index */
-		Value baseValue = wrap(nd.getBase().accept(this));
-		Value accessor = wrap(nd.getIndex().accept(this));
+		Value baseValue = wrap(valueOf(nd.getBase()));
+		Value accessor = wrap(valueOf(nd.getIndex()));
 		return Jimple.v().newArrayRef(baseValue, accessor);
 	}
 	
@@ -168,8 +187,8 @@ public class ExprCodeGenerator extends Visitor<Value> {
 		 *       generate code in the more specialised visitor methods visitAddExpr,
 		 *       visitSubExpr, etc., instead
 		 */
-		final Value left = wrap(nd.getLeft().accept(this));
-		final Value right = wrap(nd.getRight().accept(this));
+		final Value left = wrap(valueOf(nd.getLeft()));
+		final Value right = wrap(valueOf(nd.getRight()));
 		
 		Value res = nd.accept(new Visitor<Value>() {
 			@Override
@@ -203,8 +222,8 @@ public class ExprCodeGenerator extends Visitor<Value> {
 	/** Generate code for a comparison expression. */
 	@Override
 	public Value visitCompExpr(CompExpr nd) {
-		final Value left = wrap(nd.getLeft().accept(this)),
-					right = wrap(nd.getRight().accept(this));
+		final Value left = wrap(valueOf(nd.getLeft())),
+					right = wrap(valueOf(nd.getRight()));
 		Value res = nd.accept(new Visitor<Value>() {
 			@Override
 			public Value visitEqExpr(EqExpr nd) {
@@ -246,7 +265,7 @@ public class ExprCodeGenerator extends Visitor<Value> {
 	@Override
 	public Value visitNegExpr(NegExpr nd) {
 		/* TODO: generate code for negation expression */
-		Value val = wrap(nd.getOperand().accept(this));
+		Value val = wrap(valueOf(nd.getOperand()));
 		return Jimple.v().newNegExpr(val);
 	}
 	
@@ -268,7 +287,7 @@ public class ExprCodeGenerator extends Visitor<Value> {
 		// prepare arguments
 		Value[] args = new Value[nd.getNumArgument()];
 		for(int i=0;i<args.length;++i)
-			args[i] = wrap(nd.getArgument(i).accept(this));
+			args[i] = wrap(valueOf(nd.getArgument(i)));
 		
 		// assemble invoke expression
 		StaticInvokeExpr invk = Jimple.v().newStaticInvokeExpr(callee, args);
@@ -3,6 +3,7 @@ package backend;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 
 import soot.Local;
 import soot.SootClass;
@@ -30,8 +31,11 @@ public class FunctionCodeGenerator {
 	/** Keep track of the names of all Soot-level local variables in the generated method. */
 	private final HashSet<String> generatedNames = new HashSet<String>();
 	
-	/** Map from source-level local variables to Soot-level local variables. */
-	private final HashMap<VarDecl, Local> sootLocalMap = new HashMap<VarDecl, Local>();
+	/** For every name prefix, the smallest numeric suffix that may still be free. */
+	private final HashMap<String, Integer> nextSuffix = new HashMap<String, Integer>();
+	
+	/** Map from source-level local variables to Soot-level local variables; AST nodes are compared by identity. */
+	private final IdentityHashMap<VarDecl, Local> sootLocalMap = new IdentityHashMap<VarDecl, Local>();
 	
 	public FunctionCodeGenerator(ModuleCodeGenerator mcg) {
 		this.mcg = mcg;
@@ -50,8 +54,14 @@ public class FunctionCodeGenerator {
 	/** Generates a fresh name starting with {@code prefix}. */
 	private String mkTempName(String prefix) {
 		String tmpname = prefix;
-		if(!generatedNames.add(prefix))
-			for(int i=0;!generatedNames.add(tmpname=prefix+i);++i);
+		if(!generatedNames.add(prefix)) {
+			// names are never removed, so suffixes below the one we stopped at last time are still taken
+			Integer next = nextSuffix.get(prefix);
+			int i = next == null ? 0 : next;
+			while(!generatedNames.add(tmpname=prefix+i))
+				++i;
+			nextSuffix.put(prefix, i+1);
+		}
 		return tmpname;
 	}
 
@@ -1,6 +1,10 @@
 package backend;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import soot.RefType;
+import soot.Scene;
 import soot.Type;
 import ast.ArrayType;
 import ast.BooleanType;
@@ -11,33 +15,61 @@ import ast.VoidType;
 
 /** Utility class for converting from source-level types to Soot types. */
 public class SootTypeUtil {
+	/**
+	 * The Soot types of the type descriptors converted so far for a Soot scene. There is only
+	 * one type descriptor for every type (see {@link TypeDescriptor#forJavaType(String)} and
+	 * {@link TypeDescriptor#arrayType()}), and AST nodes do not override {@code equals} and
+	 * {@code hashCode}, so the map compares descriptors by identity. Soot types belong to a
+	 * scene, so a new cache is started whenever Soot has been reset.
+	 */
+	private static class Cache {
+		final Scene scene;
+		final Map<TypeDescriptor, Type> types = new ConcurrentHashMap<TypeDescriptor, Type>();
+
+		Cache(Scene scene) {
+			this.scene = scene;
+		}
+	}
+
+	private static volatile Cache cache;
+
+	private static final Visitor<Type> converter = new Visitor<Type>() {
+		@Override
+		public Type visitIntType(ast.IntType nd) {
+			return soot.IntType.v();
+		}
+
+		@Override
+		public Type visitBooleanType(BooleanType nd) {
+			return soot.BooleanType.v();
+		}
+
+		@Override
+		public Type visitVoidType(VoidType nd) {
+			return soot.VoidType.v();
+		}
+
+		@Override
+		public Type visitArrayType(ArrayType nd) {
+			return getSootType(nd.getElementType()).makeArrayType();
+		}
+
+		@Override
+		public Type visitJavaType(JavaType nd) {
+			return RefType.v(nd.getName());
+		}
+	};
+
 	/** Determines the Soot-level type for the given type descriptor. */
 	public static Type getSootType(TypeDescriptor td) {
-		return td.accept(new Visitor<Type>() {
-			@Override
-			public Type visitIntType(ast.IntType nd) {
-				return soot.IntType.v();
-			}
-			
-			@Override
-			public Type visitBooleanType(BooleanType nd) {
-				return soot.BooleanType.v();
-			}
-			
-			@Override
-			public Type visitVoidType(VoidType nd) {
-				return soot.VoidType.v();
-			}
-			
-			@Override
-			public Type visitArrayType(ArrayType nd) {
-				return nd.getElementType().accept(this).makeArrayType();
-			}
-			
-			@Override
-			public Type visitJavaType(JavaType nd) {
-				return RefType.v(nd.getName());
-			}
-		});
+		Cache current = cache;
+		if(current == null || current.scene != Scene.v())
+			cache = current = new Cache(Scene.v());
+		Type type = current.types.get(td);
+		if(type == null) {
+			type = td.accept(converter);
+			current.types.put(td, type);
+		}
+		return type;
 	}
 }
@@ -0,0 +1,305 @@
+package frontend;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import ast.ASTNode;
+import ast.Module;
+
+/**
+ * Keeps a module in sync with its source text as the text is edited. An edit that stays within
+ * a single declaration only reparses that declaration, and splices the result into the
+ * existing module; the module is only parsed in full if the edit changes where declarations
+ * begin and end, touches an import or the module header, or cannot be parsed on its own.
+ *
+ * Declarations are delimited on the source text: a declaration ends at a semicolon directly
+ * inside the module, or at the closing brace of a block directly inside the module. As the
+ * nodes of the existing declarations cannot be moved to other lines, an edit that adds or
+ * removes lines also reparses all declarations after the edited one.
+ *
+ * Since the parsed declarations replace nodes of a tree whose attributes may already have been
+ * evaluated, all cached attribute values in the tree containing the module are flushed after
+ * every edit that is handled incrementally.
+ */
+public class IncrementalParser {
+	/** Text preceding a declaration that is parsed on its own. */
+	private static final String HEADER = "module M{";
+
+	private final StringBuilder source;
+	private Module module;
+
+	/**
+	 * The number of imports, the offsets and lines of all imports and declarations, and the
+	 * offsets just after the module's opening brace and at its closing brace; the arrays are
+	 * {@code null} if these are not known.
+	 */
+	private int imports, bodyStart, bodyEnd;
+	private int[] starts, ends, lines;
+
+	/** Parses the given module source. */
+	public IncrementalParser(String source) throws IOException, beaver.Parser.Exception {
+		this.source = new StringBuilder(source);
+		parseAll();
+	}
+
+	public String getSource() {
+		return source.toString();
+	}
+
+	/** Returns the module as of the last successful parse, or {@code null} if the last edit left the source unparsable. */
+	public Module getModule() {
+		return module;
+	}
+
+	/**
+	 * Replaces {@code length} characters at {@code offset} of the source by {@code replacement},
+	 * and updates the module. Returns the same module object as before if the edit could be
+	 * handled incrementally, and a newly parsed module otherwise.
+	 */
+	public Module edit(int offset, int length, String replacement) throws IOException, beaver.Parser.Exception {
+		if(offset < 0 || length < 0 || offset + length > source.length())
+			throw new IndexOutOfBoundsException("edit of " + length + " characters at " + offset + ", source length " + source.length());
+
+		// count one more character on either side, so a line terminator split by the edit is counted the same before and after
+		boolean blank = isBlank(source, offset, offset + length) && isBlank(replacement, 0, replacement.length());
+		int lineDelta = -countLines(source, Math.max(offset - 1, 0), Math.min(offset + length + 1, source.length()));
+		source.replace(offset, offset + length, replacement);
+		lineDelta += countLines(source, Math.max(offset - 1, 0), Math.min(offset + replacement.length() + 1, source.length()));
+
+		Module current = module;
+		// if parsing fails below, the next edit starts from scratch
+		module = null;
+		if(current != null && starts != null && reparse(current, offset, length, replacement.length(), blank, lineDelta)) {
+			module = current;
+		} else {
+			parseAll();
+		}
+		return module;
+	}
+
+	private void parseAll() throws IOException, beaver.Parser.Exception {
+		module = null;
+		starts = ends = lines = null;
+		Module parsed = ParserSession.forCurrentThread().parse(new StringReader(source.toString()));
+		findItems(parsed);
+		module = parsed;
+	}
+
+	/**
+	 * Updates the module for an edit that replaced {@code length} characters at {@code offset}
+	 * by {@code newLength} characters, and changed the number of lines by {@code lineDelta};
+	 * {@code blank} tells whether both the old and the new characters were white space. The edited declaration is reparsed,
+	 * along with all declarations whose tokens have moved: those after it if the number of
+	 * lines has changed, or else those starting on the line the edit ends on. An edit between
+	 * declarations that only changes white space does not need to reparse the declaration it
+	 * precedes, unless that has moved. Returns {@code false} if the edit needs a full parse.
+	 */
+	private boolean reparse(Module current, int offset, int length, int newLength, boolean blank, int lineDelta) {
+		int count = starts.length, delta = newLength - length, editEnd = offset + newLength;
+
+		// find the declarations between which a white space edit was made, or else the one containing the edit
+		int first = 0;
+		while(first < count && starts[first] < offset + length)
+			++first;
+		boolean inside = !blank || offset < (first == 0 ? bodyStart : ends[first - 1]) || offset + length > (first == count ? bodyEnd : starts[first]);
+		if(inside) {
+			first = itemContaining(offset, offset + length);
+			if(first < 0)
+				return false;
+		}
+		if(first < imports)
+			return false;
+		if(inside && (isBlank(source, starts[first], starts[first] + 1) || itemEnd(source, starts[first]) != ends[first] + delta))
+			return false;
+
+		int last;
+		if(lineDelta != 0) {
+			last = count - 1;
+		} else {
+			int endOfLine = editEnd;
+			while(endOfLine < source.length() && !SkeletonParser.isLineTerminator(source.charAt(endOfLine)))
+				++endOfLine;
+			last = inside ? first : first - 1;
+			while(delta != 0 && last + 1 < count && starts[last + 1] + delta < endOfLine)
+				++last;
+		}
+
+		if(first <= last) {
+			int start = inside ? starts[first] : starts[first] + delta;
+			int line = inside ? lines[first] : lines[first] + lineDelta;
+			int column = 0;
+			for(int i = start - 1; i >= 0 && !SkeletonParser.isLineTerminator(source.charAt(i)); --i)
+				++column;
+
+			StringBuilder wrapped = new StringBuilder(HEADER.length() + ends[last] + delta - start + 1);
+			wrapped.append(HEADER).append(source, start, ends[last] + delta).append('}');
+			Module parsed;
+			try {
+				ParserSession session = ParserSession.forCurrentThread();
+				parsed = session.parse(new ShiftingScanner(session.lexer(new StringReader(wrapped.toString())), line, column - HEADER.length()));
+			} catch(Exception e) {
+				// let the full parse report the problem
+				return false;
+			}
+			if(parsed.getNumImport() != 0 || parsed.getNumDeclaration() != last - first + 1)
+				return false;
+			for(int i = first; i <= last; ++i)
+				current.setDeclaration(parsed.getDeclaration(i - first), i - imports);
+		}
+		flushCaches(current, first - imports, last - imports);
+
+		for(int i = first; i < count; ++i) {
+			if(i > first || !inside) {
+				starts[i] += delta;
+				lines[i] += lineDelta;
+			}
+			ends[i] += delta;
+		}
+		bodyEnd += delta;
+		return true;
+	}
+
+	/** Returns the index of the import or declaration containing the given range, or -1 if there is none. */
+	private int itemContaining(int from, int to) {
+		int low = 0, high = starts.length - 1;
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+			if(starts[mid] > from)
+				high = mid - 1;
+			else if(ends[mid] < to)
+				low = mid + 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the offsets of the imports and declarations of the given module in the source. If
+	 * they do not match up with what was parsed, they are left unknown, and every edit is
+	 * handled by a full parse.
+	 */
+	private void findItems(Module parsed) {
+		int count = parsed.getNumImport() + parsed.getNumDeclaration();
+		int[] itemStarts = new int[count], itemEnds = new int[count], itemLines = new int[count];
+
+		int i = 0, n = source.length(), line = 0, item = 0;
+		// skip the module header
+		while(i < n && source.charAt(i) != '{') {
+			if(source.charAt(i) == '"')
+				i = endOfString(source, i);
+			++i;
+		}
+		int open = i + 1;
+		for(i = open; i < n; ++i) {
+			char c = source.charAt(i);
+			if(SkeletonParser.isLineTerminator(c)) {
+				if(c != '\n' || source.charAt(i - 1) != '\r')
+					++line;
+			} else if(c == '}') {
+				break;
+			} else if(!isBlank(source, i, i + 1)) {
+				int end = itemEnd(source, i);
+				if(end < 0 || item == count)
+					return;
+				itemStarts[item] = i;
+				itemEnds[item] = end;
+				itemLines[item] = line;
+				++item;
+				line += countLines(source, i, end);
+				i = end - 1;
+			}
+		}
+		if(item != count || i == n)
+			return;
+
+		imports = parsed.getNumImport();
+		bodyStart = open;
+		bodyEnd = i;
+		starts = itemStarts;
+		ends = itemEnds;
+		lines = itemLines;
+	}
+
+	/**
+	 * Returns the offset just after the import or declaration starting at {@code start}, or -1
+	 * if the module or the text ends before it does.
+	 */
+	private static int itemEnd(CharSequence text, int start) {
+		int depth = 0;
+		for(int i = start, n = text.length(); i < n; ++i) {
+			char c = text.charAt(i);
+			if(c == '"') {
+				i = endOfString(text, i);
+			} else if(c == '{') {
+				++depth;
+			} else if(c == '}') {
+				if(depth == 0)
+					return -1;
+				if(--depth == 0)
+					return i + 1;
+			} else if(c == ';' && depth == 0) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/** Counts the line terminators in the given range, the way the lexer counts them. */
+	private static int countLines(CharSequence text, int from, int to) {
+		int count = 0;
+		for(int i = from; i < to; ++i) {
+			char c = text.charAt(i);
+			if(SkeletonParser.isLineTerminator(c) && (c != '\n' || i == 0 || text.charAt(i - 1) != '\r'))
+				++count;
+		}
+		return count;
+	}
+
+	/** Like {@link SkeletonParser#endOfString}, on the source buffer. */
+	private static int endOfString(CharSequence text, int quote) {
+		int i = quote + 1, n = text.length();
+		while(i < n && text.charAt(i) != '"' && !SkeletonParser.isLineTerminator(text.charAt(i)))
+			++i;
+		return i < n && text.charAt(i) == '"' ? i : i - 1;
+	}
+
+	/** Returns {@code true} if the given range only contains characters the lexer skips as white space. */
+	private static boolean isBlank(CharSequence text, int from, int to) {
+		for(int i = from; i < to; ++i) {
+			char c = text.charAt(i);
+			if(c != ' ' && c != '\t' && c != '\f' && c != '\n' && c != '\r')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Flushes the cached attribute values of every node in the tree containing the given module,
+	 * except for its declarations from index {@code from} to {@code to}, which were just parsed.
+	 * The tree is walked with an explicit stack, as it can be deeper than the call stack allows.
+	 * This visits every node of the program, including the other modules, so an edit costs time
+	 * in proportion to the whole program even though only a declaration is reparsed; it is not
+	 * known which cached values depend on the edited declaration, so none can be kept.
+	 */
+	private static void flushCaches(Module module, int from, int to) {
+		ASTNode<?> root = module;
+		while(root.getParent() != null)
+			root = root.getParent();
+		ASTNode<?> declarations = module.getDeclarationListNoTransform();
+		Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+		pending.push(root);
+		while(!pending.isEmpty()) {
+			ASTNode<?> node = pending.pop();
+			node.flushCache();
+			node.flushCollectionCache();
+			for(int i = 0; i < node.getNumChild(); ++i) {
+				ASTNode<?> child = node.getChildNoTransform(i);
+				if(child != null && (node != declarations || i < from || i > to))
+					pending.push(child);
+			}
+		}
+	}
+}
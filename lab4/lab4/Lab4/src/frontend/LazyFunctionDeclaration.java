@@ -0,0 +1,85 @@
+package frontend;
+
+import ast.ASTNode;
+import ast.Block;
+import ast.FunctionDeclaration;
+
+/**
+ * A function declaration whose body has not been parsed yet. Its body starts out as an empty
+ * placeholder block, and is parsed from the source text the first time it is accessed, be it
+ * through {@link #getBody()}, {@link #getBodyNoTransform()}, an attribute such as name analysis,
+ * a visitor, or by copying the declaration. Only {@link #getChildNoTransform(int)}, which cannot
+ * be overridden, returns the placeholder until the body has been parsed.
+ *
+ * The body is parsed once, even if several threads access it for the first time at the same
+ * time, so that they can read the declaration concurrently; like the rest of the AST, it is not
+ * safe to evaluate attributes on it from several threads.
+ */
+public class LazyFunctionDeclaration extends FunctionDeclaration {
+	/** Thrown when accessing a body that turns out not to be syntactically correct. */
+	public static class BodyParseException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		BodyParseException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	/** Index of the body among the children of a function declaration. */
+	private static final int BODY = 3;
+
+	/** The source of the unparsed body, or {@code null} once it has been parsed. */
+	private volatile SkeletonParser.BodySource bodySource;
+
+	LazyFunctionDeclaration(FunctionDeclaration decl, SkeletonParser.BodySource bodySource) {
+		super(decl.getAccessibilityNoTransform(), decl.getReturnTypeNoTransform(), decl.getName(),
+				decl.getParameterListNoTransform(), decl.getBodyNoTransform());
+		this.Namestart = decl.Namestart;
+		this.Nameend = decl.Nameend;
+		this.start = decl.getStart();
+		this.end = decl.getEnd();
+		this.bodySource = bodySource;
+	}
+
+	/** Returns {@code true} if the body of this function has been parsed. */
+	public boolean isBodyParsed() {
+		return bodySource == null;
+	}
+
+	@Override
+	public ASTNode<?> getChild(int i) {
+		if(i == BODY && bodySource != null)
+			parseBody();
+		return super.getChild(i);
+	}
+
+	@Override
+	public Block getBodyNoTransform() {
+		if(bodySource != null)
+			parseBody();
+		return super.getBodyNoTransform();
+	}
+
+	/** Parses the body first, so that the copy and its copies of the children have it. */
+	@Override
+	public FunctionDeclaration copy() {
+		if(bodySource != null)
+			parseBody();
+		return super.copy();
+	}
+
+	private synchronized void parseBody() {
+		SkeletonParser.BodySource source = bodySource;
+		if(source == null)
+			return;
+		Block body;
+		try {
+			body = source.parse();
+		} catch(Exception e) {
+			throw new BodyParseException("cannot parse body of function " + getName() + ": " + e.getMessage(), e);
+		}
+		setBody(body);
+		// only cleared now, so that a thread that finds it cleared also finds the body set
+		bodySource = null;
+	}
+}
@@ -0,0 +1,80 @@
+package frontend;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import lexer.Lexer;
+import parser.Parser;
+import ast.Module;
+import beaver.Scanner;
+
+/**
+ * A lexer and a parser that are reused from one parse to the next. Creating a lexer allocates
+ * its 16K character buffer, and creating a parser allocates its state stack and an object for
+ * every reduce action; a session allocates these once, and resets the lexer to the next input
+ * instead.
+ *
+ * Sessions are not thread safe, and every thread gets its own from {@link #forCurrentThread()}.
+ * A session must not be used for a second parse before the first has finished, which cannot
+ * happen on a single thread unless a parse is started from within a parser action.
+ */
+public final class ParserSession {
+	private static final ThreadLocal<ParserSession> SESSIONS = new ThreadLocal<ParserSession>() {
+		@Override
+		protected ParserSession initialValue() {
+			return new ParserSession();
+		}
+	};
+
+	/**
+	 * Given to the lexer between parses, so that it does not hold on to the last input. Readers
+	 * have state and lock themselves, so every session has its own.
+	 */
+	private final Reader noInput = new StringReader("");
+	private final ReusableParser parser = new ReusableParser();
+	private Lexer lexer;
+
+	/** A parser that lets go of the symbols of a parse once it is done. */
+	private static final class ReusableParser extends Parser {
+		void release() {
+			// Beaver allocates a fresh array for every parse, so there is nothing to keep
+			_symbols = null;
+		}
+	}
+
+	private ParserSession() {}
+
+	/** Returns the session of the current thread. */
+	public static ParserSession forCurrentThread() {
+		return SESSIONS.get();
+	}
+
+	/** Parses the module read from the given reader. */
+	public Module parse(Reader reader) throws IOException, beaver.Parser.Exception {
+		return parse(lexer(reader));
+	}
+
+	/**
+	 * Parses the module read by the given scanner; this is either the session's own lexer as
+	 * returned by {@link #lexer(Reader)}, or a scanner that reads from it.
+	 */
+	public Module parse(Scanner scanner) throws IOException, beaver.Parser.Exception {
+		try {
+			return (Module)parser.parse(scanner);
+		} finally {
+			parser.release();
+			if(lexer != null)
+				lexer.yyreset(noInput);
+		}
+	}
+
+	/** Resets the session's lexer to read from the given reader, and returns it. */
+	public Lexer lexer(Reader reader) {
+		if(lexer == null)
+			lexer = new Lexer(reader);
+		else
+			lexer.yyreset(reader);
+		return lexer;
+	}
+}
@@ -0,0 +1,161 @@
+package frontend;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ast.List;
+import ast.Module;
+
+/**
+ * Lexes and parses the modules of a program concurrently. Every module gets its own lexer and
+ * parser, and modules do not refer to each other until name analysis, so they can be parsed
+ * independently; the resulting modules are put into the program in the order of their sources,
+ * no matter in which order they finish.
+ */
+public class ProgramLoader {
+	/** Thrown if one or more modules could not be parsed. */
+	public static class LoadException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		private final SortedMap<Integer, Throwable> failures;
+
+		LoadException(SortedMap<Integer, Throwable> failures, int moduleCount) {
+			super(describe(failures, moduleCount));
+			this.failures = Collections.unmodifiableSortedMap(failures);
+			for(Throwable failure : failures.values())
+				addSuppressed(failure);
+		}
+
+		private static String describe(SortedMap<Integer, Throwable> failures, int moduleCount) {
+			StringBuilder message = new StringBuilder();
+			message.append(failures.size()).append(" of ").append(moduleCount).append(" modules failed to parse");
+			for(java.util.Map.Entry<Integer, Throwable> failure : failures.entrySet())
+				message.append("\n  module ").append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+			return message.toString();
+		}
+
+		/** Returns the problem with every module that failed to parse, keyed by the module's index. */
+		public SortedMap<Integer, Throwable> getFailures() {
+			return failures;
+		}
+	}
+
+	/** Pool used by loaders that were not given one; its threads do not keep the JVM alive. */
+	private static class DefaultPool {
+		static final ExecutorService INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+			new ThreadFactory() {
+				private final ThreadFactory factory = Executors.defaultThreadFactory();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = factory.newThread(runnable);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	}
+
+	private final ExecutorService executor;
+	private boolean lazyBodies;
+
+	/** Creates a loader that parses on a shared pool with one thread per available processor. */
+	public ProgramLoader() {
+		this(DefaultPool.INSTANCE);
+	}
+
+	/** Creates a loader that parses on the given executor; the caller remains responsible for shutting it down. */
+	public ProgramLoader(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Determines whether function bodies are parsed along with the rest of their module, or
+	 * only when they are first accessed (see {@link SkeletonParser}). The latter is much
+	 * cheaper for tools that only need the signatures of a program's functions.
+	 */
+	public void setLazyBodies(boolean lazyBodies) {
+		this.lazyBodies = lazyBodies;
+	}
+
+	/** Parses the given module sources. */
+	public List<Module> parseModules(String... sources) throws LoadException, InterruptedException {
+		final boolean lazy = lazyBodies;
+		java.util.List<Callable<Module>> tasks = new ArrayList<Callable<Module>>(sources.length);
+		for(final String source : sources) {
+			tasks.add(new Callable<Module>() {
+				@Override
+				public Module call() throws Exception {
+					return lazy ? SkeletonParser.parse(source) : parse(new StringReader(source));
+				}
+			});
+		}
+		return run(tasks);
+	}
+
+	/** Parses the given UTF-8 encoded module files. */
+	public List<Module> parseFiles(java.util.List<Path> files) throws LoadException, InterruptedException {
+		final boolean lazy = lazyBodies;
+		java.util.List<Callable<Module>> tasks = new ArrayList<Callable<Module>>(files.size());
+		for(final Path file : files) {
+			tasks.add(new Callable<Module>() {
+				@Override
+				public Module call() throws Exception {
+					// lazily parsed bodies are parsed from the source text later on, so keep all of it
+					if(lazy)
+						return SkeletonParser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+					try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+						return parse(reader);
+					}
+				}
+			});
+		}
+		return run(tasks);
+	}
+
+	private static Module parse(Reader reader) throws IOException, beaver.Parser.Exception {
+		return ParserSession.forCurrentThread().parse(reader);
+	}
+
+	/**
+	 * Runs the given tasks, and collects their results in order. All tasks are waited for even
+	 * if some of them fail, so that every failure can be reported.
+	 */
+	private List<Module> run(java.util.List<Callable<Module>> tasks) throws LoadException, InterruptedException {
+		java.util.List<Future<Module>> futures = new ArrayList<Future<Module>>(tasks.size());
+		try {
+			for(Callable<Module> task : tasks)
+				futures.add(executor.submit(task));
+
+			List<Module> modules = new List<Module>();
+			SortedMap<Integer, Throwable> failures = new TreeMap<Integer, Throwable>();
+			for(int i = 0; i < futures.size(); ++i) {
+				try {
+					modules.add(futures.get(i).get());
+				} catch(ExecutionException e) {
+					failures.put(i, e.getCause());
+				}
+			}
+			if(!failures.isEmpty())
+				throw new LoadException(failures, tasks.size());
+			return modules;
+		} finally {
+			// only has an effect if we were interrupted while waiting
+			for(Future<Module> future : futures)
+				future.cancel(true);
+		}
+	}
+}
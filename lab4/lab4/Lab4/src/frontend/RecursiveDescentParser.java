@@ -0,0 +1,523 @@
+package frontend;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+import parser.Parser.Terminals;
+import ast.*;
+import ast.Module;
+import beaver.Scanner;
+import beaver.Symbol;
+
+/**
+ * A hand-written recursive descent parser for PL/3007, as an alternative to the LALR parser
+ * generated by Beaver ({@link parser.Parser}). It builds exactly the same AST, including the
+ * source positions Beaver assigns to nodes, but expressions are parsed by one method per
+ * precedence level instead of a chain of reductions, and no {@link Symbol} is allocated for
+ * anything but the tokens.
+ *
+ * By default, the parser throws a {@link SyntaxError} at the first token that does not fit the
+ * grammar. Given an error list (see {@link #setErrorList(java.util.List)}), it records the
+ * error instead, skips ahead to the end of the statement, declaration or import it was in, and
+ * carries on; the tree it returns leaves out what was skipped, so that the other phases can
+ * check the rest of the module in the same run.
+ *
+ * The parser can also stream a module: given a {@link DeclarationListener}, it hands over
+ * every top-level declaration as soon as its last token has been read, so later stages can
+ * get going on it while the rest of the module is still being parsed.
+ */
+public class RecursiveDescentParser {
+	/** Thrown when the input is not a syntactically correct module. */
+	public static class SyntaxError extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		SyntaxError(String message) {
+			super(message);
+		}
+	}
+
+	/** Receives the declarations of a module while it is being parsed. */
+	public interface DeclarationListener {
+		/**
+		 * Called on the parsing thread for every top-level declaration, in source order, as soon
+		 * as it has been parsed and added to {@code module}. At this point the module only holds
+		 * its imports and the declarations before this one.
+		 *
+		 * The parser does not touch the declaration again, so it may be handed to another
+		 * thread. Attributes that look up other declarations of the module, like name analysis,
+		 * only see the ones parsed so far, and should wait until {@code parse} has returned.
+		 */
+		void declarationParsed(Module module, Declaration declaration);
+	}
+
+	/**
+	 * Beaver gives every node the position of its first and last symbol. There is no public way
+	 * to set a node's position, but the only tokens with a position are string literals, so all
+	 * other nodes keep the position they are created with, and these fields are rarely written.
+	 */
+	private static final Field START, END;
+	static {
+		try {
+			START = Symbol.class.getDeclaredField("start");
+			END = Symbol.class.getDeclaredField("end");
+			START.setAccessible(true);
+			END.setAccessible(true);
+		} catch(NoSuchFieldException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Scanner scanner;
+	private DeclarationListener listener;
+	private java.util.List<SyntaxError> errors;
+
+	/** Tokens read from the scanner but not consumed yet; at most three are needed. */
+	private final Symbol[] lookahead = new Symbol[3];
+	private int buffered;
+
+	/** The last expression that was parsed as an LHSExpr, i.e. a variable name or array index that may be assigned to. */
+	private Expr assignable;
+
+	/**
+	 * Makes the parser recover from syntax errors and add them to the given list, or throw at the
+	 * first one if the list is {@code null}. An error at the end of the input, or in the module
+	 * header, cannot be recovered from; it is added to the list and then thrown.
+	 */
+	public void setErrorList(java.util.List<SyntaxError> errors) {
+		this.errors = errors;
+	}
+
+	/** Parses the module read by the given scanner. */
+	public Module parse(Scanner scanner) throws IOException, Scanner.Exception, SyntaxError {
+		return parse(scanner, null);
+	}
+
+	/** Parses the module read by the given scanner, passing every declaration to {@code listener} as soon as it has been parsed. */
+	public Module parse(Scanner scanner, DeclarationListener listener) throws IOException, Scanner.Exception, SyntaxError {
+		this.scanner = scanner;
+		this.listener = listener;
+		this.buffered = 0;
+		try {
+			Module module = parseModule();
+			if(peekId(0) != Terminals.EOF) {
+				SyntaxError error = unexpected();
+				if(errors == null)
+					throw error;
+				errors.add(error);
+			}
+			return module;
+		} finally {
+			this.scanner = null;
+			this.listener = null;
+			this.assignable = null;
+			java.util.Arrays.fill(lookahead, null);
+		}
+	}
+
+	private Symbol peek(int k) throws IOException, Scanner.Exception {
+		while(buffered <= k) {
+			Symbol last = buffered == 0 ? null : lookahead[buffered - 1];
+			lookahead[buffered++] = last != null && last.getId() == Terminals.EOF ? last : scanner.nextToken();
+		}
+		return lookahead[k];
+	}
+
+	private short peekId(int k) throws IOException, Scanner.Exception {
+		return peek(k).getId();
+	}
+
+	private Symbol next() throws IOException, Scanner.Exception {
+		Symbol token = peek(0);
+		System.arraycopy(lookahead, 1, lookahead, 0, --buffered);
+		lookahead[buffered] = null;
+		return token;
+	}
+
+	private boolean accept(short id) throws IOException, Scanner.Exception {
+		if(peekId(0) != id)
+			return false;
+		next();
+		return true;
+	}
+
+	private Symbol expect(short id) throws IOException, Scanner.Exception, SyntaxError {
+		if(peekId(0) != id)
+			throw unexpected();
+		return next();
+	}
+
+	private SyntaxError unexpected() throws IOException, Scanner.Exception {
+		Symbol token = peek(0);
+		if(token.getId() == Terminals.EOF)
+			return new SyntaxError("unexpected end of input");
+		return new SyntaxError("unexpected token \"" + token.value + "\"");
+	}
+
+	/**
+	 * Records the given error if the parser recovers from errors, and skips to the end of the
+	 * statement or declaration it was found in: past the next semicolon or block outside of any
+	 * block that starts after the error, or up to the closing brace of the enclosing block.
+	 * Throws the error if it cannot be recovered from.
+	 */
+	private void recover(SyntaxError error) throws IOException, Scanner.Exception, SyntaxError {
+		if(errors == null)
+			throw error;
+		// an error that could not be recovered from is passed on through the enclosing blocks
+		if(errors.isEmpty() || errors.get(errors.size() - 1) != error)
+			errors.add(error);
+		int depth = 0;
+		while(true) {
+			short id = peekId(0);
+			if(id == Terminals.EOF)
+				throw error;
+			if(id == Terminals.RCURLY && depth == 0)
+				return;
+			next();
+			if(id == Terminals.LCURLY)
+				++depth;
+			else if(id == Terminals.RCURLY && --depth == 0 || id == Terminals.SEMICOLON && depth == 0)
+				return;
+		}
+	}
+
+	private static String text(Symbol token) {
+		return (String)token.value;
+	}
+
+	/** Sets the position of {@code node} to span from {@code start} to {@code end}. */
+	private static <N extends ASTNode<?>> N span(N node, int start, int end) {
+		if(node.getStart() != start || node.getEnd() != end) {
+			try {
+				START.setInt(node, start);
+				END.setInt(node, end);
+			} catch(IllegalAccessException e) {
+				throw new AssertionError(e);
+			}
+		}
+		return node;
+	}
+
+	// Module = MODULE ID LCURLY Import* Declaration* RCURLY
+	private Module parseModule() throws IOException, Scanner.Exception, SyntaxError {
+		expect(Terminals.MODULE);
+		String name = text(expect(Terminals.ID));
+		expect(Terminals.LCURLY);
+
+		List<Import> imports = new List<Import>();
+		while(accept(Terminals.IMPORT)) {
+			try {
+				String imported = text(expect(Terminals.ID));
+				expect(Terminals.SEMICOLON);
+				imports.add(new Import("", imported));
+			} catch(SyntaxError e) {
+				recover(e);
+			}
+		}
+
+		// create the module up front, so every declaration is in place when it is passed on
+		List<Declaration> declarations = new List<Declaration>();
+		Module module = new Module("", name, imports, declarations);
+		while(!accept(Terminals.RCURLY)) {
+			Declaration declaration;
+			try {
+				declaration = parseDeclaration();
+			} catch(SyntaxError e) {
+				recover(e);
+				continue;
+			}
+			declarations.add(declaration);
+			if(listener != null)
+				listener.declarationParsed(module, declaration);
+		}
+		return module;
+	}
+
+	private Declaration parseDeclaration() throws IOException, Scanner.Exception, SyntaxError {
+		Accessibility accessibility = new Accessibility(accept(Terminals.PUBLIC));
+		if(accept(Terminals.TYPE)) {
+			String name = text(expect(Terminals.ID));
+			expect(Terminals.EQL);
+			String javaType = text(expect(Terminals.STRING_LITERAL));
+			expect(Terminals.SEMICOLON);
+			return new TypeDeclaration(accessibility, name, javaType);
+		}
+
+		TypeName type = parseTypeName();
+		String name = text(expect(Terminals.ID));
+		if(accept(Terminals.SEMICOLON))
+			return new FieldDeclaration(accessibility, new VarDecl(type, name));
+
+		expect(Terminals.LPAREN);
+		List<Parameter> parameters = new List<Parameter>();
+		if(!accept(Terminals.RPAREN)) {
+			do {
+				TypeName parameterType = parseTypeName();
+				parameters.add(new Parameter(parameterType, text(expect(Terminals.ID))));
+			} while(accept(Terminals.COMMA));
+			expect(Terminals.RPAREN);
+		}
+		expect(Terminals.LCURLY);
+		return new FunctionDeclaration(accessibility, type, name, parameters, new Block(parseStatements()));
+	}
+
+	// TypeName = (VOID | BOOLEAN | INT | ID) (LBRACKET RBRACKET)*
+	private TypeName parseTypeName() throws IOException, Scanner.Exception, SyntaxError {
+		TypeName type;
+		switch(peekId(0)) {
+		case Terminals.VOID:
+			type = new VoidTypeName();
+			break;
+		case Terminals.BOOLEAN:
+			type = new BooleanTypeName();
+			break;
+		case Terminals.INT:
+			type = new IntTypeName();
+			break;
+		case Terminals.ID:
+			type = new UserTypeName(text(peek(0)));
+			break;
+		default:
+			throw unexpected();
+		}
+		next();
+		while(accept(Terminals.LBRACKET)) {
+			expect(Terminals.RBRACKET);
+			type = new ArrayTypeName(type);
+		}
+		return type;
+	}
+
+	/** Parses statements up to and including the closing brace of their block. */
+	private List<Stmt> parseStatements() throws IOException, Scanner.Exception, SyntaxError {
+		List<Stmt> statements = new List<Stmt>();
+		while(!accept(Terminals.RCURLY)) {
+			try {
+				statements.add(parseStatement());
+			} catch(SyntaxError e) {
+				recover(e);
+			}
+		}
+		return statements;
+	}
+
+	private Stmt parseStatement() throws IOException, Scanner.Exception, SyntaxError {
+		switch(peekId(0)) {
+		case Terminals.LCURLY:
+			next();
+			return new Block(parseStatements());
+		case Terminals.IF: {
+			next();
+			Expr condition = parseCondition();
+			Stmt then = parseStatement();
+			if(accept(Terminals.ELSE))
+				return new IfStmt(condition, then, new Opt<Stmt>(parseStatement()));
+			return new IfStmt(condition, then, new Opt<Stmt>());
+		}
+		case Terminals.WHILE: {
+			next();
+			Expr condition = parseCondition();
+			return new WhileStmt(condition, parseStatement());
+		}
+		case Terminals.BREAK:
+			next();
+			expect(Terminals.SEMICOLON);
+			return new BreakStmt();
+		case Terminals.RETURN: {
+			next();
+			if(accept(Terminals.SEMICOLON))
+				return new ReturnStmt(new Opt<Expr>());
+			Expr value = parseExpression();
+			expect(Terminals.SEMICOLON);
+			return new ReturnStmt(new Opt<Expr>(value));
+		}
+		case Terminals.VOID:
+		case Terminals.BOOLEAN:
+		case Terminals.INT:
+			return parseLocalVariable();
+		case Terminals.ID:
+			// a declaration starts with a type name, i.e. an identifier followed by another or by "[]"
+			if(peekId(1) == Terminals.ID || peekId(1) == Terminals.LBRACKET && peekId(2) == Terminals.RBRACKET)
+				return parseLocalVariable();
+			return parseExpressionStatement();
+		default:
+			return parseExpressionStatement();
+		}
+	}
+
+	private Stmt parseExpressionStatement() throws IOException, Scanner.Exception, SyntaxError {
+		Expr expr = parseExpression();
+		expect(Terminals.SEMICOLON);
+		return span(new ExprStmt(expr), expr.getStart(), 0);
+	}
+
+	private Stmt parseLocalVariable() throws IOException, Scanner.Exception, SyntaxError {
+		TypeName type = parseTypeName();
+		String name = text(expect(Terminals.ID));
+		expect(Terminals.SEMICOLON);
+		return new VarDeclStmt(new LocalVarDecl(type, name));
+	}
+
+	// LPAREN Expression RPAREN, as in if and while statements
+	private Expr parseCondition() throws IOException, Scanner.Exception, SyntaxError {
+		expect(Terminals.LPAREN);
+		Expr condition = parseExpression();
+		expect(Terminals.RPAREN);
+		return condition;
+	}
+
+	// Expression = LHSExpr EQL Expression | RHSExpression
+	private Expr parseExpression() throws IOException, Scanner.Exception, SyntaxError {
+		Expr left = parseComparison();
+		if(peekId(0) != Terminals.EQL)
+			return left;
+		if(left != assignable)
+			throw unexpected();
+		next();
+		Expr right = parseExpression();
+		return span(new Assignment((LHSExpr)left, right), left.getStart(), right.getEnd());
+	}
+
+	// RHSExpression = ArithmeticExpression (ComparisonOperator ArithmeticExpression)?
+	private Expr parseComparison() throws IOException, Scanner.Exception, SyntaxError {
+		Expr left = parseSum();
+		short operator = peekId(0);
+		switch(operator) {
+		case Terminals.EQEQ:
+		case Terminals.NEQ:
+		case Terminals.LT:
+		case Terminals.LEQ:
+		case Terminals.GT:
+		case Terminals.GEQ:
+			break;
+		default:
+			return left;
+		}
+		next();
+		Expr right = parseSum();
+		Expr comparison;
+		switch(operator) {
+		case Terminals.EQEQ:
+			comparison = new EqExpr(left, right);
+			break;
+		case Terminals.NEQ:
+			comparison = new NeqExpr(left, right);
+			break;
+		case Terminals.LT:
+			comparison = new LtExpr(left, right);
+			break;
+		case Terminals.LEQ:
+			comparison = new LeqExpr(left, right);
+			break;
+		case Terminals.GT:
+			comparison = new GtExpr(left, right);
+			break;
+		default:
+			comparison = new GeqExpr(left, right);
+			break;
+		}
+		return span(comparison, left.getStart(), right.getEnd());
+	}
+
+	// ArithmeticExpression = ArithmeticExpression (PLUS | MINUS) Term | Term
+	private Expr parseSum() throws IOException, Scanner.Exception, SyntaxError {
+		Expr left = parseProduct();
+		for(short operator = peekId(0); operator == Terminals.PLUS || operator == Terminals.MINUS; operator = peekId(0)) {
+			next();
+			Expr right = parseProduct();
+			left = span(operator == Terminals.PLUS ? new AddExpr(left, right) : new SubExpr(left, right), left.getStart(), right.getEnd());
+		}
+		return left;
+	}
+
+	// Term = Term (TIMES | DIV | MOD) Factor | Factor
+	private Expr parseProduct() throws IOException, Scanner.Exception, SyntaxError {
+		Expr left = parseFactor();
+		for(short operator = peekId(0); operator == Terminals.TIMES || operator == Terminals.DIV || operator == Terminals.MOD; operator = peekId(0)) {
+			next();
+			Expr right = parseFactor();
+			Expr product;
+			if(operator == Terminals.TIMES)
+				product = new MulExpr(left, right);
+			else if(operator == Terminals.DIV)
+				product = new DivExpr(left, right);
+			else
+				product = new ModExpr(left, right);
+			left = span(product, left.getStart(), right.getEnd());
+		}
+		return left;
+	}
+
+	// Factor = MINUS Factor | PrimaryExpression
+	private Expr parseFactor() throws IOException, Scanner.Exception, SyntaxError {
+		if(peekId(0) != Terminals.MINUS)
+			return parsePrimary();
+		int start = next().getStart();
+		Expr operand = parseFactor();
+		return span(new NegExpr(operand), start, operand.getEnd());
+	}
+
+	/** Parses a primary expression, followed by any number of array indices. */
+	private Expr parsePrimary() throws IOException, Scanner.Exception, SyntaxError {
+		Expr expr;
+		Symbol token = next();
+		switch(token.getId()) {
+		case Terminals.ID:
+			if(accept(Terminals.LPAREN)) {
+				List<Expr> arguments = peekId(0) == Terminals.RPAREN ? new List<Expr>() : parseExpressions();
+				expect(Terminals.RPAREN);
+				expr = new Call(new FunctionName(text(token)), arguments);
+			} else {
+				expr = assignable = new VarName(text(token));
+			}
+			break;
+		case Terminals.STRING_LITERAL:
+			expr = span(new StringLiteral(text(token)), token.getStart(), token.getEnd());
+			break;
+		case Terminals.INT_LITERAL:
+			expr = new IntLiteral(Integer.parseInt(text(token)));
+			break;
+		case Terminals.TRUE:
+			expr = new BooleanLiteral(true);
+			break;
+		case Terminals.FALSE:
+			expr = new BooleanLiteral(false);
+			break;
+		case Terminals.LBRACKET:
+			expr = new ArrayLiteral(parseExpressions());
+			expect(Terminals.RBRACKET);
+			break;
+		case Terminals.LPAREN:
+			// the parenthesised expression takes the position of the parentheses, and cannot be assigned to
+			expr = span(parseExpression(), token.getStart(), expect(Terminals.RPAREN).getEnd());
+			assignable = null;
+			break;
+		default:
+			buffered = pushBack(token);
+			throw unexpected();
+		}
+
+		while(accept(Terminals.LBRACKET)) {
+			Expr index = parseExpression();
+			int end = expect(Terminals.RBRACKET).getEnd();
+			expr = assignable = span(new ArrayIndex(expr, index), expr.getStart(), end);
+		}
+		return expr;
+	}
+
+	/** Puts a token back in front of the lookahead, and returns the new number of buffered tokens. */
+	private int pushBack(Symbol token) {
+		System.arraycopy(lookahead, 0, lookahead, 1, buffered);
+		lookahead[0] = token;
+		return buffered + 1;
+	}
+
+	/** Parses a non-empty, comma-separated list of expressions. */
+	private List<Expr> parseExpressions() throws IOException, Scanner.Exception, SyntaxError {
+		Expr first = parseExpression();
+		List<Expr> exprs = new List<Expr>().add(first);
+		Expr last = first;
+		while(accept(Terminals.COMMA))
+			exprs.add(last = parseExpression());
+		return span(exprs, first.getStart(), last.getEnd());
+	}
+}
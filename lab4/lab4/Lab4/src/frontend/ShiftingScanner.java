@@ -0,0 +1,40 @@
+package frontend;
+
+import java.io.IOException;
+
+import beaver.Scanner;
+import beaver.Symbol;
+import lexer.Lexer;
+
+/**
+ * Moves the tokens of a piece of a module that is parsed on its own, behind a header that
+ * stands in for the text preceding it, back to where they are in the module: every token goes
+ * down by the line the piece starts on, and tokens on the first line also move right by the
+ * difference between the piece's column and the header length. Tokens without a position
+ * keep it.
+ */
+final class ShiftingScanner extends Scanner {
+	private final Lexer lexer;
+	private final int lineDelta, columnDelta;
+
+	ShiftingScanner(Lexer lexer, int lineDelta, int columnDelta) {
+		this.lexer = lexer;
+		this.lineDelta = lineDelta;
+		this.columnDelta = columnDelta;
+	}
+
+	@Override
+	public Symbol nextToken() throws IOException, Scanner.Exception {
+		Symbol token = lexer.nextToken();
+		if(token.getStart() == 0 && token.getEnd() == 0)
+			return token;
+		return new Symbol(token.getId(), shift(token.getStart()), shift(token.getEnd()), token.value);
+	}
+
+	private int shift(int position) {
+		int line = Symbol.getLine(position), column = Symbol.getColumn(position);
+		if(line == 0)
+			column += columnDelta;
+		return Symbol.makePosition(line + lineDelta, column);
+	}
+}
@@ -0,0 +1,140 @@
+package frontend;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import ast.Block;
+import ast.Declaration;
+import ast.FunctionDeclaration;
+import ast.Module;
+
+/**
+ * Parses a module without parsing the bodies of its functions. Function bodies are found by
+ * brace matching on the source text, and blanked out before the rest of the module is lexed
+ * and parsed, so the parser only ever sees an empty block for them. Every function declaration
+ * of the resulting module is a {@link LazyFunctionDeclaration} that parses its body when it is
+ * first accessed.
+ *
+ * Blanking keeps line terminators and replaces all other characters by spaces, so every token
+ * outside the bodies keeps its original line and column. Bodies are later parsed on their own,
+ * behind a small module header, and their tokens are moved back to their original positions.
+ *
+ * Errors inside a body are only reported when that body is parsed.
+ */
+public final class SkeletonParser {
+	/** The shortest text that can precede a function body: "module M{T f()". */
+	private static final String HEADER = "module M{T f()";
+
+
+	private SkeletonParser() {}
+
+	/** The text of an unparsed function body, from its opening to its closing brace. */
+	static final class BodySource {
+		private final String source;
+		private final int open, close, line, column;
+
+		BodySource(String source, int open, int close, int line, int column) {
+			this.source = source;
+			this.open = open;
+			this.close = close;
+			this.line = line;
+			this.column = column;
+		}
+
+		Block parse() throws IOException, beaver.Parser.Exception {
+			StringBuilder text = new StringBuilder(HEADER.length() + close + 2 - open);
+			text.append(HEADER).append(source, open, close + 1).append('}');
+			ParserSession session = ParserSession.forCurrentThread();
+			Module module = session.parse(new ShiftingScanner(session.lexer(new StringReader(text.toString())), line, column - HEADER.length()));
+			return ((FunctionDeclaration)module.getDeclaration(0)).getBody();
+		}
+	}
+
+	/** Parses the given module source, leaving function bodies to be parsed on demand. */
+	public static Module parse(String source) throws IOException, beaver.Parser.Exception {
+		char[] skeleton = source.toCharArray();
+		java.util.List<BodySource> bodies = new ArrayList<BodySource>();
+		blankBodies(source, skeleton, bodies);
+
+		Module module = ParserSession.forCurrentThread().parse(new StringReader(new String(skeleton)));
+		int body = 0;
+		for(int i = 0; i < module.getNumDeclaration(); ++i) {
+			Declaration decl = module.getDeclaration(i);
+			if(decl instanceof FunctionDeclaration && body < bodies.size())
+				module.setDeclaration(new LazyFunctionDeclaration((FunctionDeclaration)decl, bodies.get(body++)), i);
+		}
+		return module;
+	}
+
+	/**
+	 * Finds every function body, that is every brace-delimited block directly inside the module
+	 * that follows a closing parenthesis, records it and blanks it out in {@code skeleton}.
+	 */
+	private static void blankBodies(String source, char[] skeleton, java.util.List<BodySource> bodies) {
+		int depth = 0, line = 0, column = 0, counted = 0;
+		char previous = 0;
+		for(int i = 0, n = skeleton.length; i < n; ++i) {
+			char c = skeleton[i];
+			if(c == '"') {
+				i = endOfString(skeleton, i);
+			} else if(c == '{') {
+				int close = depth == 1 && previous == ')' ? matchingBrace(skeleton, i) : -1;
+				if(close < 0) {
+					++depth;
+				} else {
+					// count lines and columns the way the lexer does, up to the opening brace
+					for(; counted < i; ++counted) {
+						char d = skeleton[counted];
+						if(isLineTerminator(d)) {
+							if(d != '\n' || counted == 0 || skeleton[counted - 1] != '\r')
+								++line;
+							column = 0;
+						} else {
+							++column;
+						}
+					}
+					bodies.add(new BodySource(source, i, close, line, column));
+					for(int j = i + 1; j < close; ++j)
+						if(!isLineTerminator(skeleton[j]))
+							skeleton[j] = ' ';
+					i = close;
+					c = '}';
+				}
+			} else if(c == '}') {
+				--depth;
+			}
+			if(!Character.isWhitespace(c))
+				previous = c;
+		}
+	}
+
+	/** Returns the index of the brace closing the one at {@code open}, or -1 if it is not closed. */
+	private static int matchingBrace(char[] text, int open) {
+		int depth = 0;
+		for(int i = open, n = text.length; i < n; ++i) {
+			char c = text[i];
+			if(c == '"') {
+				i = endOfString(text, i);
+			} else if(c == '{') {
+				++depth;
+			} else if(c == '}' && --depth == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** Returns the index of the quote closing the one at {@code quote}; like in the lexer, a string ends at the end of its line. */
+	static int endOfString(char[] text, int quote) {
+		int i = quote + 1;
+		while(i < text.length && text[i] != '"' && !isLineTerminator(text[i]))
+			++i;
+		return i < text.length && text[i] == '"' ? i : i - 1;
+	}
+
+	/** Returns {@code true} for the characters the lexer counts as ending a line. */
+	static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == 0x0B || c == '\f' || c == 0x85 || c == 0x2028 || c == 0x2029;
+	}
+}
@@ -0,0 +1,147 @@
+package test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The harness of the benchmarks in this package. A benchmark runs its measured code
+ * {@link #getWarmup()} times to warm up the JIT, without measuring it, and then
+ * {@link #getRuns()} times, and reports the times of every measurement; their median and
+ * minimum are printed as soon as they are reported. If the system property
+ * {@code benchmark.json} names a file, {@link #finish()} also writes all measurements to it as
+ * JSON, each with the setup it was made in, so that runs can be compared with each other.
+ *
+ * Allocation is measured per thread, which needs a HotSpot JVM; elsewhere it is reported as -1.
+ */
+public final class Benchmark {
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final String name;
+	private final int warmup, runs;
+	private String setup = "";
+	private final List<String> results = new ArrayList<String>();
+
+	public Benchmark(String name, int warmup, int runs) {
+		this.name = name;
+		this.warmup = warmup;
+		this.runs = runs;
+	}
+
+	public int getWarmup() {
+		return warmup;
+	}
+
+	public int getRuns() {
+		return runs;
+	}
+
+	/** Prints what the following measurements are made on, and records it with them. */
+	public void setup(String format, Object... args) {
+		setup = String.format(format, args);
+		System.out.println(setup);
+	}
+
+	/** Reports the times of a measurement, in nanoseconds. */
+	public void report(String what, long[] nanos) {
+		long[] sorted = sorted(nanos);
+		System.out.printf("%s: median %.2f ms, min %.2f ms (%d runs)%n", what,
+				sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, sorted.length);
+		record(what, sorted, "");
+	}
+
+	/** Reports the times of a measurement that ran the given number of operations every time, per operation. */
+	public void report(String what, long[] nanos, int operations, String operation) {
+		long[] sorted = sorted(nanos);
+		System.out.printf("%s: median %.3f us, min %.3f us per %s (%d runs)%n", what,
+				sorted[sorted.length / 2] / 1e3 / operations, sorted[0] / 1e3 / operations, operation, sorted.length);
+		record(what, sorted, String.format(Locale.ROOT, ", \"operations\": %d, \"operation\": %s", operations, quote(operation)));
+	}
+
+	/** As {@link #report(String, long[], int, String)}, with the bytes allocated by every run of the measurement. */
+	public void report(String what, long[] nanos, long[] bytes, int operations, String operation) {
+		long[] sorted = sorted(nanos);
+		long allocated = median(bytes);
+		System.out.printf("%s: median %.2f us, %d bytes allocated per %s (%d runs)%n", what,
+				sorted[sorted.length / 2] / 1e3 / operations, allocated / operations, operation, sorted.length);
+		record(what, sorted, String.format(Locale.ROOT, ", \"operations\": %d, \"operation\": %s, \"medianBytes\": %d",
+				operations, quote(operation), allocated));
+	}
+
+	/** Reports a measurement that could not be made. */
+	public void skip(String what, String reason) {
+		System.out.printf("%s: skipped, %s%n", what, reason);
+		results.add(String.format(Locale.ROOT, "{\"setup\": %s, \"measurement\": %s, \"skipped\": %s}", quote(setup), quote(what), quote(reason)));
+	}
+
+	private void record(String what, long[] sorted, String extra) {
+		results.add(String.format(Locale.ROOT, "{\"setup\": %s, \"measurement\": %s, \"runs\": %d, \"medianNanos\": %d, \"minNanos\": %d%s}",
+				quote(setup), quote(what), sorted.length, sorted[sorted.length / 2], sorted[0], extra));
+	}
+
+	/** Writes all measurements to the file named by the system property {@code benchmark.json}, if it is set. */
+	public void finish() throws IOException {
+		String output = System.getProperty("benchmark.json");
+		if(output == null)
+			return;
+		StringBuilder json = new StringBuilder();
+		json.append("{\"benchmark\": ").append(quote(name)).append(", \"java\": ").append(quote(System.getProperty("java.version")))
+			.append(", \"warmup\": ").append(warmup).append(",\n \"results\": [\n  ");
+		for(int i = 0; i < results.size(); ++i)
+			json.append(i == 0 ? "" : ",\n  ").append(results.get(i));
+		json.append("\n ]\n}\n");
+		write(output, json.toString());
+	}
+
+	/** Returns the number of bytes allocated by the current thread so far, or -1 if this cannot be measured. */
+	public static long allocatedBytes() {
+		if(THREADS instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	public static long median(long[] values) {
+		long[] sorted = sorted(values);
+		return sorted[sorted.length / 2];
+	}
+
+	/** Writes the given text to the given file, or to standard output if the file is "-". */
+	public static void write(String output, String text) throws IOException {
+		if(output.equals("-")) {
+			System.out.print(text);
+			System.out.flush();
+			return;
+		}
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+			writer.write(text);
+		}
+	}
+
+	private static long[] sorted(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	private static String quote(String text) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for(int i = 0; i < text.length(); ++i) {
+			char c = text.charAt(i);
+			if(c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if(c < ' ')
+				quoted.append(String.format(Locale.ROOT, "\\u%04x", (int)c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+}
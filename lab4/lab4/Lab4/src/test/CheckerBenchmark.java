@@ -0,0 +1,65 @@
+package test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ast.List;
+import ast.Module;
+import ast.ParallelChecker;
+import ast.Program;
+import frontend.ProgramLoader;
+
+/**
+ * Compares checking a generated program (see {@link ProgramGenerator}) one module after the
+ * other with checking it on several threads through {@link ParallelChecker}. Every run checks a
+ * fresh copy of the program, since checking caches attribute values in the tree; making the
+ * copy is not measured.
+ *
+ * Run with the number of modules (default 8), their size in characters (default 200000), the
+ * number of threads (default one per available processor) and the number of measured runs
+ * (default 10); the first runs warm up the JIT and are not measured.
+ */
+public class CheckerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int runs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+		Benchmark benchmark = new Benchmark("checker", 5, runs);
+
+		List<Module> modules = new ProgramLoader().parseModules(new ProgramGenerator(3007).program(count, size));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			ParallelChecker checker = new ParallelChecker(executor, threads);
+			long[] sequential = new long[runs], parallel = new long[runs];
+			for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+				Program program = new Program(modules.fullCopy());
+				long start = System.nanoTime();
+				program.namecheck();
+				program.typecheck();
+				program.flowcheck();
+				long checked = System.nanoTime();
+				if(program.hasErrors())
+					throw new IllegalStateException(program.getErrors().iterator().next().toString());
+
+				program = new Program(modules.fullCopy());
+				long copied = System.nanoTime();
+				checker.check(program);
+				long checkedInParallel = System.nanoTime();
+				if(program.hasErrors())
+					throw new IllegalStateException(program.getErrors().iterator().next().toString());
+				if(i >= 0) {
+					sequential[i] = checked - start;
+					parallel[i] = checkedInParallel - copied;
+				}
+			}
+			benchmark.setup("%d modules of %d characters, %d threads", count, size, threads);
+			benchmark.report("one module after the other", sequential);
+			benchmark.report("parallel checker", parallel);
+			benchmark.finish();
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
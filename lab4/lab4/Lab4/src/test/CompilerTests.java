@@ -1,28 +1,74 @@
 package test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 
 import backend.ProgramCodeGenerator;
+import backend.SootTypeUtil;
+import frontend.IncrementalParser;
+import frontend.LazyFunctionDeclaration;
+import frontend.ParserSession;
+import frontend.ProgramLoader;
+import frontend.RecursiveDescentParser;
 
 import org.junit.Assert;
-import lexer.Lexer;
-import parser.Parser;
 import soot.Printer;
+import soot.RefType;
 import soot.SootClass;
 import soot.jimple.JasminClass;
 import soot.util.JasminOutputStream;
+import ast.ASTNode;
+import ast.AddExpr;
+import ast.AttributeProfiler;
+import ast.BinaryExpr;
+import ast.Block;
+import ast.BooleanLiteral;
+import ast.BooleanTypeName;
+import ast.Call;
+import ast.CompExpr;
+import ast.CompilerError;
+import ast.Declaration;
+import ast.Expr;
+import ast.ExprStmt;
+import ast.FieldDeclaration;
+import ast.FunctionDeclaration;
+import ast.IntLiteral;
+import ast.IntType;
+import ast.IntTypeName;
+import ast.IterativeVisitor;
+import ast.JavaTypeName;
 import ast.List;
 import ast.Module;
+import ast.NegExpr;
+import ast.ParallelChecker;
 import ast.Program;
+import ast.ReturnStmt;
+import ast.RuntimeModuleCache;
+import ast.ScopeIndex;
+import ast.StringLiteral;
+import ast.TypeDescriptor;
+import ast.UserTypeName;
+import ast.VarName;
+import ast.VoidTypeName;
+import lexer.Lexer;
+import parser.Parser;
 
 /**
  * System tests for the compiler: compiles a given program to Java bytecode, then immediately
@@ -31,6 +77,15 @@ import ast.Program;
 public class CompilerTests {
 	// set this flag to true to dump generated Jimple code to standard output
 	private static final boolean DEBUG = false;
+
+	// set this flag to true to dump how often attributes were evaluated, and how long they took, to standard output
+	private static final boolean PROFILE = false;
+	
+	private static final ProgramLoader LOADER = new ProgramLoader();
+	private static final ProgramLoader LAZY_LOADER = new ProgramLoader();
+	static {
+		LAZY_LOADER.setLazyBodies(true);
+	}
 	
 	/**
 	 * A simple class loader that allows us to directly load compiled classes.
@@ -67,14 +122,36 @@ public class CompilerTests {
 	 * @param expected expected result
 	 */
 	private void runtest(String[] modules_src, String main_module, String main_function, Class<?>[] parm_types, Object[] args, Object expected) {
+		List<Module> modules;
+		try {
+			modules = parseModules(modules_src);
+		} catch(Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+			return;
+		}
+		runtest(modules, main_module, main_function, parm_types, args, expected);
+	}
+
+	/** Test runner that parses the program with the given loader. Other arguments are the same. */
+	private void runtest(ProgramLoader program_loader, String[] modules_src, String main_module, String main_function, Class<?>[] parm_types, Object[] args, Object expected) {
+		try {
+			runtest(program_loader.parseModules(modules_src), main_module, main_function, parm_types, args, expected);
+		} catch(Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	/** Test runner for a program whose modules have already been parsed. Other arguments are the same. */
+	private void runtest(List<Module> modules, String main_module, String main_function, Class<?>[] parm_types, Object[] args, Object expected) {
 		try {
-			List<Module> modules = new List<Module>();
-			for(String module_src : modules_src) {
-				Parser parser = new Parser();
-				Module module = (Module)parser.parse(new Lexer(new StringReader(module_src)));
-				modules.add(module);
-			}
 			Program prog = new Program(modules);
+			AttributeProfiler profiler = null;
+			if(PROFILE) {
+				profiler = new AttributeProfiler();
+				profiler.attach(prog);
+			}
 			
 			prog.namecheck();
 			prog.typecheck();
@@ -99,6 +176,8 @@ public class CompilerTests {
 					pw.flush();
 					loader.addClass(name, baos.toByteArray());
 				}
+				if(profiler != null)
+					profiler.report(System.out);
 
 				Class<?> testclass = loader.loadClass(main_module);
 				Method method = testclass.getMethod(main_function, parm_types);
@@ -121,6 +200,14 @@ public class CompilerTests {
 		}
 	}
 
+	/** Parses the given module sources one after the other, each with a new parser. */
+	private static List<Module> parseModules(String... sources) throws IOException, beaver.Parser.Exception {
+		List<Module> modules = new List<Module>();
+		for(String source : sources)
+			modules.add((Module)new Parser().parse(new Lexer(new StringReader(source))));
+		return modules;
+	}
+
 	/** Convenience wrapper for runtest with only a single module. Other arguments are the same .*/
 	private void runtest(String string, String classname, String methodname, Class<?>[] parmTypes, Object[] args, Object expected) {
 		runtest(new String[] { string }, classname, methodname, parmTypes, args, expected);
@@ -295,4 +382,571 @@ public class CompilerTests {
 				new Object[0],
 				10);
 	}
+	
+	@Test public void testProgramLoader() throws Exception {
+		// the modules come out in the order of their sources, whichever is parsed first
+		String[] sources = new ProgramGenerator(12).program(6, 5000);
+		List<Module> expected = parseModules(sources), loaded = LOADER.parseModules(sources);
+		Assert.assertEquals(expected.getNumChild(), loaded.getNumChild());
+		for(int i = 0; i < expected.getNumChild(); ++i)
+			assertSameTree(expected.getChild(i), loaded.getChild(i), "Module");
+
+		// every module that fails to parse is reported
+		try {
+			LOADER.parseModules("module A { int f( }", "module B { }", "module C { # }");
+			Assert.fail("errors not reported");
+		} catch(ProgramLoader.LoadException e) {
+			Assert.assertEquals(Arrays.asList(0, 2), new ArrayList<Integer>(e.getFailures().keySet()));
+		}
+
+		runtest(LOADER,
+				new String[] {
+					"module Test { import Lib; public int f() { return g(20) + 2; } }",
+					"module Lib { public int g(int x) { return x * 2; } }"
+				},
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				42);
+	}
+
+	@Test public void testLazyFunctionBodies() {
+		runtest(LAZY_LOADER,
+				new String[] {
+					"module Test {"
+					+ "  import Lib;"
+					+ "  public int a;"
+					+ "  public int f() {"
+					+ "    a = 0;"
+					+ "    while (a < 10) {"
+					+ "      if (a == 4) { a = a + 1; } else { a = a + 2; }"
+					+ "    }"
+					+ "    return g(a);"
+					+ "  }"
+					+ "  int g(int x) { return h(x) * 2; }"
+					+ "}",
+					"module Lib {"
+					+ "  public int h(int x) { { return x + 1; } }"
+					+ "}"
+				},
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				24);
+	}
+	
+	@Test public void testLazyBodyAccess() throws Exception {
+		final Module module = LAZY_LOADER.parseModules(new String[] {
+			"module Test { int f() { return 1; } int g() { int x; x = 2; return x; } int h() { return 3; } }"
+		}).getChild(0);
+		FunctionDeclaration f = (FunctionDeclaration)module.getDeclaration(0), g = (FunctionDeclaration)module.getDeclaration(1);
+		Assert.assertFalse(((LazyFunctionDeclaration)f).isBodyParsed());
+
+		// copies have the body, not the placeholder
+		FunctionDeclaration copy = f.fullCopy();
+		Assert.assertTrue(((LazyFunctionDeclaration)f).isBodyParsed());
+		Assert.assertEquals(1, copy.getBodyNoTransform().getNumStmtNoTransform());
+		Assert.assertTrue(copy.getBodyNoTransform().getStmtListNoTransform().getChildNoTransform(0) instanceof ReturnStmt);
+		Assert.assertEquals(3, g.getBodyNoTransform().getNumStmtNoTransform());
+
+		// threads accessing a body for the first time all get the same one
+		final Block[] bodies = new Block[4];
+		Thread[] threads = new Thread[bodies.length];
+		for(int i = 0; i < threads.length; ++i) {
+			final int index = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					bodies[index] = ((FunctionDeclaration)module.getDeclaration(2)).getBody();
+				}
+			};
+		}
+		for(Thread thread : threads)
+			thread.start();
+		for(Thread thread : threads)
+			thread.join();
+		for(Block body : bodies)
+			Assert.assertSame(bodies[0], body);
+	}
+
+	@Test public void testIncrementalReparse() throws Exception {
+		String src = "module Test {\n"
+				+ "  public int a;\n"
+				+ "  public int f() {\n"
+				+ "    a = 10;\n"
+				+ "    return g(a);\n"
+				+ "  }\n"
+				+ "  int g(int x) { return x + 1; }\n"
+				+ "}";
+		IncrementalParser parser = new IncrementalParser(src);
+		Module module = parser.getModule();
+		// a change within a function body, and one adding a line, are both spliced into the same module
+		Assert.assertSame(module, parser.edit(src.indexOf("x + 1"), 5, "x * 2"));
+		Assert.assertSame(module, parser.edit(parser.getSource().indexOf("return g(a)"), 0, "a = a + 4;\n    "));
+		Assert.assertEquals(src.replace("x + 1", "x * 2").replace("return g(a)", "a = a + 4;\n    return g(a)"), parser.getSource());
+
+		List<Module> modules = new List<Module>();
+		modules.add(module);
+		runtest(modules,
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				28);
+
+		// flushing after an edit walks the whole tree, which may be far too deep to recurse into
+		StringBuilder deep = new StringBuilder("module Deep {\n  int f() { return 0");
+		for(int i = 0; i < 200000; ++i)
+			deep.append(" + 1");
+		deep.append("; }\n  int g() { return 1; }\n}");
+		parser = new IncrementalParser(deep.toString());
+		module = parser.getModule();
+		// materialize the body, in case it is parsed lazily
+		((FunctionDeclaration)module.getDeclaration(0)).getBody();
+		Assert.assertSame(module, parser.edit(deep.indexOf("return 1"), 8, "return 2"));
+	}
+	
+	@Test public void testRecursiveDescentParser() throws Exception {
+		String src = "module Test {"
+				+ "  import Lib;"
+				+ "  public type S = \"java.lang.String\";"
+				+ "  int[] a;"
+				+ "  public int f() {"
+				+ "    int i; int j; int[][] b; S s;"
+				+ "    a = [3, -2 * (1 + 4), 7 % 4];"
+				+ "    b = [a];"
+				+ "    s = \"x\";"
+				+ "    i = j = 0;"
+				+ "    while (i < 2) {"
+				+ "      if (i == j) b[0][i] = g(a[1], s); else { a[2] = a[2] + 1; }"
+				+ "      i = i + 1;"
+				+ "    }"
+				+ "    return a[0] - (a[1] - 1) / 2 + a[2];"
+				+ "  }"
+				+ "  int g(int x, S s) { return x * 2; }"
+				+ "}";
+		Module expected = (Module)new Parser().parse(new Lexer(new StringReader(src)));
+		Module actual = new RecursiveDescentParser().parse(new Lexer(new StringReader(src)));
+		assertSameTree(expected, actual, "Module");
+
+		// both parsers build the same trees for generated programs
+		for(int seed = 0; seed < 100; ++seed) {
+			String[] program = new ProgramGenerator(seed).program(2, 4000);
+			for(int i = 0; i < program.length; ++i) {
+				Module lalr = (Module)new Parser().parse(new Lexer(new StringReader(program[i])));
+				Module descent = new RecursiveDescentParser().parse(new Lexer(new StringReader(program[i])));
+				assertSameTree(lalr, descent, "seed " + seed + ", M" + i);
+			}
+		}
+
+		List<Module> modules = new List<Module>();
+		modules.add(actual);
+		modules.add(new RecursiveDescentParser().parse(new Lexer(new StringReader("module Lib { }"))));
+		runtest(modules,
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				-11);
+	}
+
+	@Test public void testParserRecovery() throws Exception {
+		String src = "module Test {"
+				+ "  import Lib;"
+				+ "  int a = 1;"
+				+ "  public int f(int x) {"
+				+ "    int y;"
+				+ "    y = x + ;"
+				+ "    if (x < ) { y = 2; }"
+				+ "    return y + z;"
+				+ "  }"
+				+ "  int g(int x { return x; }"
+				+ "  int h() { return 1; }"
+				+ "}";
+		try {
+			new RecursiveDescentParser().parse(new Lexer(new StringReader(src)));
+			Assert.fail("parsed a module with syntax errors");
+		} catch(RecursiveDescentParser.SyntaxError e) {
+			Assert.assertEquals("unexpected token \"=\"", e.getMessage());
+		}
+
+		// with an error list, all errors are found, and what is left of the module is the same as without them
+		java.util.List<RecursiveDescentParser.SyntaxError> errors = new ArrayList<RecursiveDescentParser.SyntaxError>();
+		RecursiveDescentParser parser = new RecursiveDescentParser();
+		parser.setErrorList(errors);
+		Module partial = parser.parse(new Lexer(new StringReader(src)));
+		java.util.List<String> messages = new ArrayList<String>();
+		for(RecursiveDescentParser.SyntaxError error : errors)
+			messages.add(error.getMessage());
+		Assert.assertEquals(Arrays.asList("unexpected token \"=\"", "unexpected token \";\"", "unexpected token \")\"", "unexpected token \"{\""), messages);
+		String left = "module Test { import Lib; public int f(int x) { int y; return y + z; } int h() { return 1; } }";
+		assertSameTree((Module)new Parser().parse(new Lexer(new StringReader(left))), partial, "Module");
+
+		// the other phases check the partial module in the same run
+		List<Module> modules = new List<Module>();
+		modules.add(partial);
+		modules.add(new RecursiveDescentParser().parse(new Lexer(new StringReader("module Lib { }"))));
+		Program prog = new Program(modules);
+		prog.namecheck();
+		Assert.assertEquals(1, errorMessages(prog).size());
+		Assert.assertTrue(errorMessages(prog).get(0), errorMessages(prog).get(0).contains("z"));
+
+		// an error at the end of the input is recorded and thrown
+		errors.clear();
+		try {
+			parser.parse(new Lexer(new StringReader("module Test { int f() { return 1;")));
+			Assert.fail("parsed an unterminated module");
+		} catch(RecursiveDescentParser.SyntaxError e) {
+			Assert.assertEquals(Arrays.asList(e), errors);
+		}
+	}
+
+	@Test public void testStreamingParse() throws Exception {
+		String src = "module Test {"
+				+ "  public int a;"
+				+ "  public int f() { a = 3; return g(a) + 1; }"
+				+ "  int g(int x) { return x * x; }"
+				+ "}";
+		final java.util.List<String> parsed = new ArrayList<String>();
+		Module module = new RecursiveDescentParser().parse(new Lexer(new StringReader(src)), new RecursiveDescentParser.DeclarationListener() {
+			@Override
+			public void declarationParsed(Module module, Declaration declaration) {
+				// every declaration arrives in place, before the ones after it have been parsed
+				Assert.assertSame(declaration, module.getDeclaration(module.getNumDeclaration() - 1));
+				parsed.add(declaration instanceof FunctionDeclaration ? ((FunctionDeclaration)declaration).getName() : "a");
+			}
+		});
+		Assert.assertEquals(Arrays.asList("a", "f", "g"), parsed);
+
+		List<Module> modules = new List<Module>();
+		modules.add(module);
+		runtest(modules,
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				10);
+	}
+
+	@Test public void testParserSession() throws Exception {
+		ParserSession session = ParserSession.forCurrentThread();
+		Assert.assertSame(session, ParserSession.forCurrentThread());
+		try {
+			session.parse(new StringReader("module Broken { int f( }"));
+			Assert.fail("syntax error not reported");
+		} catch(beaver.Parser.Exception e) {
+			// the session is reset for the next parse all the same
+		}
+
+		List<Module> modules = new List<Module>();
+		modules.add(session.parse(new StringReader("module Test { import Lib; public int f() { return g(20) + 2; } }")));
+		modules.add(session.parse(new StringReader("module Lib { public int g(int x) { return x * 2; } }")));
+		runtest(modules,
+				"Test",
+				"f",
+				new Class<?>[0],
+				new Object[0],
+				42);
+	}
+
+	@Test public void testIterativeVisitor() throws Exception {
+		IterativeVisitor<Integer> evaluator = new IterativeVisitor<Integer>() {
+			@Override
+			public Integer visitIntLiteral(IntLiteral nd) {
+				return nd.getValue();
+			}
+			@Override
+			public Integer visitAddExpr(AddExpr nd) {
+				return valueOf(nd.getLeft()) + valueOf(nd.getRight());
+			}
+		};
+
+		// far too deep for recursive dispatch with the default stack size
+		StringBuilder source = new StringBuilder("module Deep { int f() { return 0");
+		int depth = 200000, sum = 0;
+		for(int i = 0; i < depth; ++i) {
+			source.append(" + ").append(i % 10);
+			sum += i % 10;
+		}
+		Module module = ParserSession.forCurrentThread().parse(new StringReader(source.append("; } }").toString()));
+		Expr expr = ((ReturnStmt)((FunctionDeclaration)module.getDeclaration(0)).getBody().getStmt(0)).getExpr();
+		Assert.assertEquals(Integer.valueOf(sum), evaluator.traverse(expr));
+		// recursively down to the maximum depth, and with the explicit stack below
+		Assert.assertEquals(Integer.valueOf(sum), evaluator.apply(expr));
+
+		// the same visitor also works recursively
+		Expr small = new AddExpr(new AddExpr(new IntLiteral(1), new IntLiteral(2)), new IntLiteral(3));
+		Assert.assertEquals(Integer.valueOf(6), small.accept(evaluator));
+		Assert.assertEquals(Integer.valueOf(6), evaluator.traverse(small));
+		Assert.assertEquals(Integer.valueOf(6), evaluator.apply(small));
+
+		// a sum of 4000 terms compiles and runs on a 1 MB stack, on which code generation used to
+		// overflow from about 3000 terms; the checks are generated code that still recurses, and
+		// overflow from about 6000 terms on such a stack
+		final StringBuilder compiled = new StringBuilder("module Deep { public int f() { return 0");
+		for(int i = 0; i < 4000; ++i)
+			compiled.append(" + 1");
+		compiled.append("; } }");
+		final Throwable[] failure = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					runtest(new String[] { compiled.toString() }, "Deep", "f", new Class<?>[0], new Object[0], 4000);
+				} catch(Throwable t) {
+					failure[0] = t;
+				}
+			}
+		}, "deep", 1 << 20);
+		thread.start();
+		thread.join();
+		if(failure[0] != null)
+			throw new AssertionError(failure[0]);
+	}
+
+	@Test public void testParallelChecker() throws Exception {
+		String[] sources = {
+			"module Test { import Lib; import Lib; int x; boolean x; public int f() { int y; y = true; return g(y); } int h() { return false; } }",
+			"module Lib { public int g(int a) { boolean b; b = a; return a; } public int g(int a) { return a; } }",
+			"module Other { import Other; public void k() { printint(1 + true); } }",
+			"module Lib { }"
+		};
+		Program sequential = new Program(parseModules(sources));
+		sequential.namecheck();
+		sequential.typecheck();
+		sequential.flowcheck();
+		Program parallel = new Program(parseModules(sources));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			new ParallelChecker(executor, 4).check(parallel);
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(errorMessages(sequential), errorMessages(parallel));
+		Assert.assertTrue(parallel.hasErrors());
+
+		Program correct = new Program(parseModules(new ProgramGenerator(3007).program(4, 20000)));
+		new ParallelChecker().check(correct);
+		Assert.assertEquals(new ArrayList<String>(), errorMessages(correct));
+
+		// the copies replace the types of these nodes in the fields the generated code caches them in
+		Program cached = new Program(parseModules("module Cache { type S = \"java.lang.String\"; S s;"
+				+ " public void v(boolean b) { int[] a; a = [-1 + 2]; b = 1 < 2; s = \"x\"; b = true; } }"));
+		Class<?>[] types = { IntLiteral.class, BooleanLiteral.class, StringLiteral.class, CompExpr.class, BinaryExpr.class, NegExpr.class },
+				descriptors = { IntTypeName.class, BooleanTypeName.class, VoidTypeName.class, JavaTypeName.class, UserTypeName.class };
+		Set<Class<?>> replaced = new HashSet<Class<?>>();
+		// only the runtime module, which is built from Java methods, has Java type names
+		java.util.List<ASTNode<?>> nodes = preorder(cached);
+		nodes.addAll(preorder(cached.runtimeModule()));
+		for(ASTNode<?> node : nodes) {
+			for(Class<?>[] classes : new Class<?>[][] { types, descriptors }) {
+				String attribute = classes == types ? "type" : "getDescriptor";
+				for(Class<?> type : classes) {
+					if(type.isInstance(node)) {
+						Method method = type.getMethod(attribute);
+						Assert.assertNotNull(method.invoke(node));
+						TypeDescriptor replacement = new IntType();
+						cacheField(node.getClass(), attribute + "_value").set(node, replacement);
+						Assert.assertSame(replacement, method.invoke(node));
+						replaced.add(type);
+					}
+				}
+			}
+		}
+		Assert.assertEquals(types.length + descriptors.length, replaced.size());
+	}
+
+	/** Returns the field of the given node class or one of its superclasses that caches an attribute value. */
+	private static Field cacheField(Class<?> type, String name) throws NoSuchFieldException {
+		for(Class<?> declaring = type; declaring != Object.class; declaring = declaring.getSuperclass()) {
+			try {
+				Field field = declaring.getDeclaredField(name);
+				field.setAccessible(true);
+				return field;
+			} catch(NoSuchFieldException e) {
+				// declared further up
+			}
+		}
+		throw new NoSuchFieldException(type.getName() + "." + name);
+	}
+
+	@Test public void testAttributeProfiler() throws Exception {
+		String src = "module Test {\n"
+				+ "  public int f(int x) {\n"
+				+ "    int y;\n"
+				+ "    y = x + 1;\n"
+				+ "    return g(y) + g(x);\n"
+				+ "  }\n"
+				+ "  int g(int x) { return x; }\n"
+				+ "}";
+		IncrementalParser parser = new IncrementalParser(src);
+		List<Module> modules = new List<Module>();
+		modules.add(parser.getModule());
+		Program prog = new Program(modules);
+		AttributeProfiler profiler = new AttributeProfiler();
+		profiler.attach(prog);
+		prog.namecheck();
+		prog.typecheck();
+		Assert.assertFalse(prog.hasErrors());
+
+		// an edit within g flushes all nodes but the ones of g directly, which drops their counting maps
+		parser.edit(src.indexOf("return x;"), 9, "return x * 2;");
+		profiler.attach(prog);
+		prog.namecheck();
+		prog.typecheck();
+		for(ASTNode<?> node : preorder(prog))
+			if(node instanceof Call)
+				profiler.flushCache(node);
+		ByteArrayOutputStream report = new ByteArrayOutputStream();
+		profiler.report(new PrintStream(report, true));
+		Map<String, String[]> rows = new HashMap<String, String[]>();
+		for(String line : report.toString().split("\n"))
+			rows.put(line.split(" +")[0], line.trim().split(" +"));
+
+		// the five variable uses are evaluated in both checks, the one in g on the old and the new g
+		Assert.assertArrayEquals(new String[] { "VarName.lookupVar(String)", "10", "0" }, Arrays.copyOf(rows.get("VarName.lookupVar(String)"), 3));
+		Assert.assertArrayEquals(new String[] { "5", "0" }, Arrays.copyOfRange(rows.get("VarName.lookupVar(String)"), 4, 6));
+		// g is looked up in the module once per call and check, and found in the cache for the second call
+		Assert.assertArrayEquals(new String[] { "Module.lookupLocalFunction(String)", "4", "4" }, Arrays.copyOf(rows.get("Module.lookupLocalFunction(String)"), 3));
+		// the evaluations of attributes with parameters are timed while they run
+		Assert.assertTrue(Double.parseDouble(rows.get("VarName.lookupVar(String)")[3]) > 0);
+		// attributes without parameters only have their cached and flushed values counted
+		Assert.assertArrayEquals(new String[] { "VarName.decl", "n/a", "n/a", "n/a", "5", "0" }, rows.get("VarName.decl"));
+		Assert.assertArrayEquals(new String[] { "Call.getCallTarget", "n/a", "n/a", "n/a", "0", "2" }, rows.get("Call.getCallTarget"));
+		Assert.assertTrue(report.toString().contains("\n2 flushCache calls"));
+	}
+
+	@Test public void testScopeIndex() throws Exception {
+		String[] sources = {
+			"module Test { import Lib; int x; int x;\n"
+				+ "  public int f(int x) {\n"
+				+ "    int y; y = x;\n"
+				+ "    { x = y; int x; x = 10; { y = y + x; int y; y = 100; } x = x + w; y = y + x; }\n"
+				+ "    while(x < 20) { int x; x = 1; y = y + g(x); }\n"
+				+ "    return y;\n"
+				+ "  }\n"
+				+ "  int g(int x) { return x + 1; }\n"
+				+ "  int g(int y) { return y; }\n"
+				+ "}",
+			"module Lib { public int w; int hidden; public int h() { return hidden; } }"
+		};
+		Program plain = new Program(parseModules(sources)), indexed = new Program(parseModules(sources));
+		ScopeIndex.index(indexed);
+		// the cache of Lib only holds the names it declares and the names Test uses, so any
+		// other name is searched for
+		Field cache = Module.class.getDeclaredField("lookupLocalField_String_values");
+		cache.setAccessible(true);
+		Map<?, ?> fields = (Map<?, ?>)cache.get(indexed.getModule(1));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("w", "hidden", "x", "y")), fields.keySet());
+		Assert.assertFalse(fields.containsKey("hidden2"));
+		for(Program prog : new Program[] { plain, indexed }) {
+			prog.namecheck();
+			prog.typecheck();
+		}
+		Assert.assertEquals(errorMessages(plain), errorMessages(indexed));
+		// every use resolves to the declaration at the same position
+		java.util.List<ASTNode<?>> plainNodes = preorder(plain), indexedNodes = preorder(indexed);
+		for(int i = 0; i < plainNodes.size(); ++i) {
+			if(plainNodes.get(i) instanceof VarName) {
+				VarName plainUse = (VarName)plainNodes.get(i), indexedUse = (VarName)indexedNodes.get(i);
+				Assert.assertEquals(plainUse.decl().getStart(), indexedUse.decl().getStart());
+				// names other than its own are looked up on a use as they are without the index
+				for(String name : new String[] { "x", "y", "w", "hidden", "z" })
+					Assert.assertEquals(position(plainUse.lookupVar(name)), position(indexedUse.lookupVar(name)));
+			}
+			if(plainNodes.get(i) instanceof Call)
+				Assert.assertEquals(((Call)plainNodes.get(i)).getCallTarget().getStart(), ((Call)indexedNodes.get(i)).getCallTarget().getStart());
+		}
+		Assert.assertNull(indexed.getModule(1).lookupLocalField("hidden2"));
+		Assert.assertNull(indexed.resolveModule("Missing"));
+	}
+
+	@Test public void testSootTypes() throws Exception {
+		Program prog = new Program(parseModules(new String[] {
+			"module Test { type S = \"java.lang.String\"; int[][] a; public S[] f(int[][] p, S[] q) { return q; } }"
+		}));
+		prog.namecheck();
+		prog.typecheck();
+		Assert.assertFalse(prog.hasErrors());
+		FieldDeclaration a = (FieldDeclaration)prog.getModule(0).getDeclaration(1);
+		FunctionDeclaration f = (FunctionDeclaration)prog.getModule(0).getDeclaration(2);
+
+		// every type has a single descriptor, which is always converted to the same Soot type
+		TypeDescriptor ints = TypeDescriptor.INT.arrayType().arrayType(), strings = TypeDescriptor.forJavaType("java.lang.String").arrayType();
+		Assert.assertSame(ints, a.getVarDecl().getTypeName().getDescriptor());
+		Assert.assertSame(ints, f.getParameter(0).type());
+		Assert.assertSame(strings, f.getParameter(1).type());
+		Assert.assertSame(strings, f.getReturnType().getDescriptor());
+		Assert.assertSame(SootTypeUtil.getSootType(ints), SootTypeUtil.getSootType(f.getParameter(0).type()));
+		Assert.assertEquals(soot.IntType.v().makeArrayType().makeArrayType(), SootTypeUtil.getSootType(ints));
+		Assert.assertEquals(RefType.v("java.lang.String").makeArrayType(), SootTypeUtil.getSootType(strings));
+	}
+
+	@Test public void testRuntimeModuleCache() throws Exception {
+		Program built = new Program(new List<Module>()), first = new Program(new List<Module>()), second = new Program(new List<Module>());
+		RuntimeModuleCache.install(first);
+		RuntimeModuleCache.install(second);
+		assertSameTree(built.runtimeModule(), first.runtimeModule(), "Module");
+		// every program has a copy of its own
+		Assert.assertNotSame(first.runtimeModule(), second.runtimeModule());
+		Assert.assertSame(first, first.runtimeModule().getParent());
+		Assert.assertSame(first.runtimeModule(), first.resolveModule("runtime.Runtime"));
+		Assert.assertNotNull(first.runtimeModule().lookupLocalFunction("printint"));
+
+		// a program that has built its runtime module keeps it
+		Module module = built.runtimeModule();
+		RuntimeModuleCache.install(built);
+		Assert.assertSame(module, built.runtimeModule());
+
+		// a program that calls the runtime checks the same with the copy
+		Program prog = new Program(parseModules(new String[] { "module Test { public int f() { printint(42); return 42; } }" }));
+		RuntimeModuleCache.install(prog);
+		prog.namecheck();
+		prog.typecheck();
+		prog.flowcheck();
+		Assert.assertFalse(prog.hasErrors());
+		FunctionDeclaration printint = prog.runtimeModule().lookupLocalFunction("printint");
+		Call call = (Call)((ExprStmt)((FunctionDeclaration)prog.getModule(0).getDeclaration(0)).getBody().getStmt(0)).getExpr();
+		Assert.assertSame(printint, call.getCallTarget());
+	}
+
+	private static int position(ASTNode<?> node) {
+		return node == null ? -1 : node.getStart();
+	}
+
+	private static java.util.List<ASTNode<?>> preorder(ASTNode<?> root) {
+		java.util.List<ASTNode<?>> nodes = new ArrayList<ASTNode<?>>();
+		nodes.add(root);
+		for(int i = 0; i < nodes.size(); ++i)
+			for(int j = 0; j < nodes.get(i).getNumChild(); ++j)
+				nodes.add(nodes.get(i).getChild(j));
+		return nodes;
+	}
+
+	private static java.util.List<String> errorMessages(Program program) {
+		java.util.List<String> messages = new ArrayList<String>();
+		for(CompilerError error : program.getErrors())
+			messages.add(error.toString());
+		return messages;
+	}
+
+	/** Asserts that two trees have the same node types, positions and token values. */
+	private static void assertSameTree(ASTNode<?> expected, ASTNode<?> actual, String path) throws IllegalAccessException {
+		Assert.assertEquals(path, expected.getClass(), actual.getClass());
+		Assert.assertEquals(path + " start", expected.getStart(), actual.getStart());
+		Assert.assertEquals(path + " end", expected.getEnd(), actual.getEnd());
+		for(Class<?> klass = expected.getClass(); klass != ASTNode.class; klass = klass.getSuperclass()) {
+			for(Field field : klass.getDeclaredFields()) {
+				if(field.getName().startsWith("token")) {
+					field.setAccessible(true);
+					Assert.assertEquals(path + " " + field.getName(), field.get(expected), field.get(actual));
+				}
+			}
+		}
+		Assert.assertEquals(path + " children", expected.getNumChildNoTransform(), actual.getNumChildNoTransform());
+		for(int i = 0; i < expected.getNumChildNoTransform(); ++i)
+			assertSameTree(expected.getChildNoTransform(i), actual.getChildNoTransform(i), path + "/" + expected.getChildNoTransform(i).getClass().getSimpleName());
+	}
 }
@@ -0,0 +1,153 @@
+package test;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+import lexer.Lexer;
+import parser.Parser;
+import ast.ASTNode;
+import frontend.RecursiveDescentParser;
+
+/**
+ * Measures the throughput and allocation of the lexer and of both parsers on generated
+ * modules of increasing size (see {@link ProgramGenerator}), and writes the results as JSON,
+ * so that runs can be compared with each other.
+ *
+ * Arguments: the file to write the results to, or "-" for standard output, followed by the
+ * module sizes in characters, with an optional K or M suffix. The default sizes go from 1K to
+ * 10M; a 100M module needs a heap of several gigabytes to be parsed.
+ *
+ * Every size is measured a number of times that shrinks as the size grows, after as many
+ * unmeasured runs to warm up the JIT, and the medians are reported. Allocation is measured as
+ * in {@link Benchmark}, whose helpers this uses; the results keep their own format, which has
+ * throughput and allocation per token and node.
+ */
+public class FrontEndBenchmark {
+	private static final long SEED = 3007;
+	private static final String[] DEFAULT_SIZES = { "1K", "10K", "100K", "1M", "10M" };
+
+	/** The median time and allocation of a number of runs, and what was counted in one of them. */
+	private static class Result {
+		final long nanos, bytes, count;
+
+		Result(long nanos, long bytes, long count) {
+			this.nanos = nanos;
+			this.bytes = bytes;
+			this.count = count;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String output = args.length > 0 ? args[0] : "-";
+		String[] sizes = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_SIZES;
+
+		List<String> results = new ArrayList<String>();
+		for(String size : sizes) {
+			int characters = parseSize(size);
+			String source = new ProgramGenerator(SEED).module("Bench", characters);
+			int runs = (int)Math.max(3, Math.min(100, 10000000L / characters));
+
+			Result lexer = measure(source, runs, new Run() {
+				@Override
+				public long run(String source) throws Exception {
+					Lexer lexer = new Lexer(new StringReader(source));
+					long tokens = 1;
+					while(lexer.nextToken().getId() != Parser.Terminals.EOF)
+						++tokens;
+					return tokens;
+				}
+			});
+			Result lalr = measure(source, runs, new Run() {
+				@Override
+				public long run(String source) throws Exception {
+					return countNodes((ASTNode<?>)new Parser().parse(new Lexer(new StringReader(source))));
+				}
+			});
+			Result descent = measure(source, runs, new Run() {
+				@Override
+				public long run(String source) throws Exception {
+					return countNodes(new RecursiveDescentParser().parse(new Lexer(new StringReader(source))));
+				}
+			});
+
+			StringBuilder json = new StringBuilder();
+			json.append("{\"size\": \"").append(size).append("\", \"characters\": ").append(source.length())
+				.append(", \"tokens\": ").append(lexer.count).append(", \"nodes\": ").append(lalr.count)
+				.append(", \"runs\": ").append(runs).append(",\n     ");
+			json.append("\"lexer\": ").append(toJson(lexer, lexer.count, -1)).append(",\n     ");
+			json.append("\"parser\": ").append(toJson(lalr, lexer.count, lalr.count)).append(",\n     ");
+			json.append("\"recursiveDescentParser\": ").append(toJson(descent, lexer.count, descent.count)).append('}');
+			results.add(json.toString());
+			System.err.printf(Locale.ROOT, "%s: lexer %.1f ms, parser %.1f ms, recursive descent parser %.1f ms%n", size,
+					lexer.nanos / 1e6, lalr.nanos / 1e6, descent.nanos / 1e6);
+		}
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\"benchmark\": \"front end\", \"seed\": ").append(SEED)
+			.append(", \"java\": \"").append(System.getProperty("java.version")).append("\",\n \"results\": [\n  ");
+		for(int i = 0; i < results.size(); ++i)
+			json.append(i == 0 ? "" : ",\n  ").append(results.get(i));
+		json.append("\n ]\n}\n");
+		Benchmark.write(output, json.toString());
+	}
+
+	private interface Run {
+		/** Runs the measured code once, and returns the number of tokens or nodes it produced. */
+		long run(String source) throws Exception;
+	}
+
+	private static Result measure(String source, int runs, Run run) throws Exception {
+		long[] nanos = new long[runs], bytes = new long[runs];
+		long count = 0;
+		for(int i = -runs; i < runs; ++i) {
+			long allocated = Benchmark.allocatedBytes(), start = System.nanoTime();
+			count = run.run(source);
+			long end = System.nanoTime();
+			if(i >= 0) {
+				nanos[i] = end - start;
+				bytes[i] = allocated < 0 ? -1 : Benchmark.allocatedBytes() - allocated;
+			}
+		}
+		return new Result(Benchmark.median(nanos), Benchmark.median(bytes), count);
+	}
+
+	/** Formats a result as a JSON object; {@code nodes} is the number of nodes built, or -1 for the lexer. */
+	private static String toJson(Result result, long tokens, long nodes) {
+		StringBuilder json = new StringBuilder();
+		json.append(String.format(Locale.ROOT, "{\"medianNanos\": %d, \"tokensPerSecond\": %.0f", result.nanos, tokens * 1e9 / result.nanos));
+		if(nodes >= 0)
+			json.append(String.format(Locale.ROOT, ", \"nodesPerSecond\": %.0f", nodes * 1e9 / result.nanos));
+		json.append(String.format(Locale.ROOT, ", \"bytesAllocated\": %d, \"bytesPerToken\": %.1f", result.bytes, (double)result.bytes / tokens));
+		if(nodes >= 0)
+			json.append(String.format(Locale.ROOT, ", \"bytesPerNode\": %.1f", (double)result.bytes / nodes));
+		return json.append('}').toString();
+	}
+
+	/** Counts the nodes of a tree without recursion, so that deep trees do not need a deep stack. */
+	private static long countNodes(ASTNode<?> root) {
+		long count = 0;
+		Deque<ASTNode<?>> pending = new ArrayDeque<ASTNode<?>>();
+		pending.push(root);
+		while(!pending.isEmpty()) {
+			ASTNode<?> node = pending.pop();
+			++count;
+			for(int i = 0; i < node.getNumChildNoTransform(); ++i)
+				pending.push(node.getChildNoTransform(i));
+		}
+		return count;
+	}
+
+	private static int parseSize(String size) {
+		String upper = size.toUpperCase();
+		if(upper.endsWith("K"))
+			return Integer.parseInt(upper.substring(0, upper.length() - 1)) * 1024;
+		if(upper.endsWith("M"))
+			return Integer.parseInt(upper.substring(0, upper.length() - 1)) * 1024 * 1024;
+		return Integer.parseInt(upper);
+	}
+}
@@ -0,0 +1,64 @@
+package test;
+
+import java.io.StringReader;
+
+import lexer.Lexer;
+import parser.Parser;
+import frontend.RecursiveDescentParser;
+
+/**
+ * Compares the throughput of the generated LALR parser with that of the recursive descent
+ * parser on a large synthetic module. Both parse from a fresh lexer every time, so the time to
+ * lex the module on its own is measured as well.
+ *
+ * Run with the number of functions in the module (default 2000) and the number of measured
+ * runs (default 30); the first runs warm up the JIT and are not measured.
+ */
+public class ParserBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int functions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		Benchmark benchmark = new Benchmark("parser", 20, runs);
+		String source = generate(functions);
+
+		long[] lex = new long[runs], lalr = new long[runs], descent = new long[runs];
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			long start = System.nanoTime();
+			Lexer lexer = new Lexer(new StringReader(source));
+			while(lexer.nextToken().getId() != Parser.Terminals.EOF)
+				;
+			long lexed = System.nanoTime();
+			new Parser().parse(new Lexer(new StringReader(source)));
+			long parsed = System.nanoTime();
+			new RecursiveDescentParser().parse(new Lexer(new StringReader(source)));
+			long descended = System.nanoTime();
+			if(i >= 0) {
+				lex[i] = lexed - start;
+				lalr[i] = parsed - lexed;
+				descent[i] = descended - parsed;
+			}
+		}
+		benchmark.setup("%d functions, %d characters", functions, source.length());
+		benchmark.report("lexer only", lex);
+		benchmark.report("LALR parser", lalr);
+		benchmark.report("recursive descent parser", descent);
+		benchmark.finish();
+	}
+
+	/** Generates a module with the given number of functions, using every kind of statement and expression. */
+	private static String generate(int functions) {
+		StringBuilder source = new StringBuilder("module Bench {\n  import Lib;\n  public type S = \"java.lang.String\";\n");
+		for(int i = 0; i < functions; ++i) {
+			source.append("  public int[] field").append(i).append(";\n");
+			source.append("  int f").append(i).append("(int a, int[] b, boolean c) {\n");
+			source.append("    int x;\n    S s;\n");
+			source.append("    x = a * ").append(i).append(" + b[").append(i % 10).append("] - (7 - -a) / 3 % 2;\n");
+			source.append("    s = \"function ").append(i).append("\";\n");
+			source.append("    if (x >= 10) { b[0] = b[1] = x; } else if (c == false) return f").append(i).append("(x, [1, 2, x], c);\n");
+			source.append("    while (x != 0) { x = x - 1; if (x < a) break; print(s); }\n");
+			source.append("    return [x, a][0];\n  }\n");
+		}
+		return source.append("}\n").toString();
+	}
+}
@@ -0,0 +1,52 @@
+package test;
+
+import java.io.StringReader;
+
+import lexer.Lexer;
+import parser.Parser;
+import frontend.ParserSession;
+
+/**
+ * Measures the time and the memory allocated per parse when every module is parsed with a new
+ * lexer and parser, and when it is parsed with the {@link ParserSession} of the thread, for a
+ * small module, as most modules are, and a generated module of the given size.
+ *
+ * Run with the size of the larger module in characters (default 20000), the number of parses
+ * per measurement (default 20000) and the number of measured runs (default 5); the first runs
+ * warm up the JIT and are not measured. Allocation is measured per thread, which needs a
+ * HotSpot JVM; elsewhere it is reported as -1.
+ */
+public class ParserSessionBenchmark {
+	private static final String SMALL = "module Test { import Lib; public int f(int x) { return x + 1; } }";
+
+	public static void main(String[] args) throws Exception {
+		int characters = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int parses = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		Benchmark benchmark = new Benchmark("parser session", 3, runs);
+
+		for(String source : new String[] { SMALL, new ProgramGenerator(3007).module("Bench", characters) }) {
+			int count = Math.max(1, (int)((long)parses * SMALL.length() / source.length()));
+			long[] fresh = new long[runs], session = new long[runs], freshBytes = new long[runs], sessionBytes = new long[runs];
+			for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+				long bytes = Benchmark.allocatedBytes(), start = System.nanoTime();
+				for(int j = 0; j < count; ++j)
+					new Parser().parse(new Lexer(new StringReader(source)));
+				long freshEnd = System.nanoTime(), freshEndBytes = Benchmark.allocatedBytes();
+				for(int j = 0; j < count; ++j)
+					ParserSession.forCurrentThread().parse(new StringReader(source));
+				long sessionEnd = System.nanoTime(), sessionEndBytes = Benchmark.allocatedBytes();
+				if(i >= 0) {
+					fresh[i] = freshEnd - start;
+					freshBytes[i] = freshEndBytes - bytes;
+					session[i] = sessionEnd - freshEnd;
+					sessionBytes[i] = sessionEndBytes - freshEndBytes;
+				}
+			}
+			benchmark.setup("%d characters, %d parses per run", source.length(), count);
+			benchmark.report("new lexer and parser", fresh, freshBytes, count, "parse");
+			benchmark.report("parser session", session, sessionBytes, count, "parse");
+		}
+		benchmark.finish();
+	}
+}
@@ -0,0 +1,218 @@
+package test;
+
+import java.util.Random;
+
+/**
+ * Generates random PL/3007 programs for benchmarks. The programs pass name analysis, type
+ * checking and flow checking, so they can be used to measure every phase of the compiler, but
+ * they are not meant to be run. The same seed always gives the same program.
+ *
+ * Every module declares fields and functions whose names start with the module's name in
+ * lower case, and calls the public functions of the module it imports, if any.
+ */
+public class ProgramGenerator {
+	/** Maximum nesting depth of expressions and of statements. */
+	private static final int MAX_DEPTH = 3;
+
+	private final Random random;
+	private StringBuilder out;
+	private String name, prefix, importedPrefix;
+	/** The number of functions of the current module and of the module it imports. */
+	private int functions, importedFunctions;
+
+	public ProgramGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/** Generates a program of {@code count} modules named {@code M0}, {@code M1}, ..., each of about {@code size} characters and importing the one before it. */
+	public String[] program(int count, int size) {
+		String[] modules = new String[count];
+		int previousFunctions = 0;
+		for(int i = 0; i < count; ++i) {
+			modules[i] = module("M" + i, i == 0 ? null : "M" + (i - 1), previousFunctions, size);
+			previousFunctions = functions;
+		}
+		return modules;
+	}
+
+	/** Generates a single module named {@code name} of about {@code size} characters. */
+	public String module(String name, int size) {
+		return module(name, null, 0, size);
+	}
+
+	private String module(String name, String imported, int importedCount, int size) {
+		out = new StringBuilder(size + 256);
+		this.name = name;
+		prefix = name.toLowerCase();
+		importedPrefix = imported == null ? null : imported.toLowerCase();
+		importedFunctions = importedCount;
+		functions = 0;
+
+		out.append("module ").append(name).append(" {\n");
+		if(imported != null)
+			out.append("\timport ").append(imported).append(";\n");
+		out.append("\tpublic type ").append(name).append("Text = \"java.lang.String\";\n");
+		out.append("\tpublic int ").append(prefix).append("Count;\n");
+		out.append("\tpublic boolean ").append(prefix).append("Flag;\n");
+		out.append("\tint[] ").append(prefix).append("Table;\n");
+		do {
+			function();
+		} while(out.length() < size);
+		out.append("}\n");
+
+		String module = out.toString();
+		out = null;
+		return module;
+	}
+
+	private void function() {
+		int index = functions++;
+		out.append("\tpublic int ").append(prefix).append('F').append(index).append("(int p, int[] q, boolean r) {\n");
+		out.append("\t\tint x;\n\t\tboolean c;\n\t\tint[] a;\n\t\t").append(name).append("Text s;\n");
+		out.append("\t\tx = p;\n\t\tc = r;\n\t\ta = [x, ").append(random.nextInt(100)).append("];\n");
+		out.append("\t\ts = \"").append(prefix).append(' ').append(index).append("\";\n");
+		int statements = 2 + random.nextInt(5);
+		for(int i = 0; i < statements; ++i)
+			statement(2, 0, index);
+		out.append("\t\treturn x;\n\t}\n");
+	}
+
+	private void statement(int indent, int depth, int function) {
+		indent(indent);
+		switch(random.nextInt(depth < MAX_DEPTH ? 10 : 6)) {
+		case 0:
+		case 1:
+			out.append("x = ");
+			intExpr(0, function);
+			out.append(";\n");
+			break;
+		case 2:
+			out.append("c = ");
+			boolExpr(0, function);
+			out.append(";\n");
+			break;
+		case 3:
+			out.append("a[");
+			intExpr(MAX_DEPTH - 1, function);
+			out.append("] = ");
+			intExpr(0, function);
+			out.append(";\n");
+			break;
+		case 4:
+			out.append(prefix).append("Count = ");
+			intExpr(1, function);
+			out.append(";\n");
+			break;
+		case 5:
+			if(random.nextBoolean()) {
+				out.append("printint(");
+				intExpr(1, function);
+				out.append(");\n");
+			} else {
+				out.append("println(s);\n");
+			}
+			break;
+		case 6:
+		case 7:
+			out.append("if (");
+			boolExpr(0, function);
+			out.append(") {\n");
+			block(indent, depth, function);
+			if(random.nextBoolean()) {
+				out.append(" else {\n");
+				block(indent, depth, function);
+			}
+			out.append('\n');
+			break;
+		case 8:
+			out.append("while (x < ").append(random.nextInt(1000)).append(") {\n");
+			indent(indent + 1);
+			out.append("x = x + 1;\n");
+			block(indent, depth, function);
+			out.append('\n');
+			break;
+		default:
+			out.append("{\n");
+			block(indent, depth, function);
+			out.append('\n');
+		}
+	}
+
+	/** Generates the statements of a block up to and including its closing brace, after its opening brace. */
+	private void block(int indent, int depth, int function) {
+		int statements = random.nextInt(3);
+		for(int i = 0; i < statements; ++i)
+			statement(indent + 1, depth + 1, function);
+		indent(indent);
+		out.append('}');
+	}
+
+	private void intExpr(int depth, int function) {
+		switch(random.nextInt(depth < MAX_DEPTH ? 12 : 5)) {
+		case 0:
+			out.append('x');
+			break;
+		case 1:
+			out.append('p');
+			break;
+		case 2:
+			out.append(random.nextInt(10000));
+			break;
+		case 3:
+			out.append("a[").append(random.nextInt(2)).append(']');
+			break;
+		case 4:
+			out.append(prefix).append("Count");
+			break;
+		case 5:
+			call(depth, function);
+			break;
+		case 6:
+			out.append('-');
+			intExpr(depth + 1, function);
+			break;
+		case 7:
+			out.append('(');
+			intExpr(depth + 1, function);
+			out.append(')');
+			break;
+		default:
+			intExpr(depth + 1, function);
+			out.append(' ').append("+-*/%".charAt(random.nextInt(5))).append(' ');
+			intExpr(depth + 1, function);
+		}
+	}
+
+	private void boolExpr(int depth, int function) {
+		switch(random.nextInt(5)) {
+		case 0:
+			out.append(random.nextBoolean() ? 'c' : 'r');
+			break;
+		case 1:
+			out.append(random.nextBoolean() ? "true" : prefix + "Flag");
+			break;
+		default:
+			intExpr(depth + 1, function);
+			out.append(' ').append(new String[] { "==", "!=", "<", "<=", ">", ">=" }[random.nextInt(6)]).append(' ');
+			intExpr(depth + 1, function);
+		}
+	}
+
+	/** Generates a call of an earlier function of this module or of a function of the imported one, or else of the current function. */
+	private void call(int depth, int function) {
+		if(importedFunctions > 0 && (function == 0 || random.nextInt(4) == 0))
+			out.append(importedPrefix).append('F').append(random.nextInt(importedFunctions));
+		else
+			out.append(prefix).append('F').append(function == 0 ? 0 : random.nextInt(function));
+		out.append('(');
+		intExpr(depth + 1, function);
+		out.append(", a, ");
+		boolExpr(depth + 1, function);
+		out.append(')');
+	}
+
+	private void indent(int indent) {
+		for(int i = 0; i < indent; ++i)
+			out.append('\t');
+	}
+}
@@ -0,0 +1,73 @@
+package test;
+
+import ast.List;
+import ast.Module;
+import ast.Program;
+import ast.RuntimeModuleCache;
+import frontend.ProgramLoader;
+
+/**
+ * Measures what a program costs to set up with the runtime module built by reflection, as
+ * {@link Program#runtimeModule()} does, and with a copy from the {@link RuntimeModuleCache}:
+ * once for an empty program, and once for checking a small module that calls the runtime, as
+ * a compile server would for every request.
+ *
+ * Run with the number of programs per measurement (default 100000) and the number of measured
+ * runs (default 10); the first runs warm up the JIT and are not measured.
+ */
+public class RuntimeModuleBenchmark {
+	private static final String SOURCE = "module Test { public int f(int x) { printint(x); return x + 1; } }";
+
+	public static void main(String[] args) throws Exception {
+		int programs = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Benchmark benchmark = new Benchmark("runtime module", 5, runs);
+
+		List<Module> modules = new ProgramLoader().parseModules(new String[] { SOURCE });
+		long[] built = new long[runs], copied = new long[runs], checked = new long[runs], checkedCopied = new long[runs];
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			long start = System.nanoTime();
+			for(int j = 0; j < programs; ++j)
+				new Program(new List<Module>()).runtimeModule();
+			long end = System.nanoTime();
+			if(i >= 0)
+				built[i] = end - start;
+
+			start = System.nanoTime();
+			for(int j = 0; j < programs; ++j)
+				RuntimeModuleCache.install(new Program(new List<Module>()));
+			end = System.nanoTime();
+			if(i >= 0)
+				copied[i] = end - start;
+
+			start = System.nanoTime();
+			for(int j = 0; j < programs; ++j)
+				check(new Program(modules.fullCopy()), false);
+			end = System.nanoTime();
+			if(i >= 0)
+				checked[i] = end - start;
+
+			start = System.nanoTime();
+			for(int j = 0; j < programs; ++j)
+				check(new Program(modules.fullCopy()), true);
+			end = System.nanoTime();
+			if(i >= 0)
+				checkedCopied[i] = end - start;
+		}
+		benchmark.report("runtime module by reflection", built, programs, "program");
+		benchmark.report("runtime module from the cache", copied, programs, "program");
+		benchmark.report("check with runtime module by reflection", checked, programs, "program");
+		benchmark.report("check with runtime module from the cache", checkedCopied, programs, "program");
+		benchmark.finish();
+	}
+
+	private static void check(Program program, boolean cached) {
+		if(cached)
+			RuntimeModuleCache.install(program);
+		program.namecheck();
+		program.typecheck();
+		program.flowcheck();
+		if(program.hasErrors())
+			throw new IllegalStateException(program.getErrors().iterator().next().toString());
+	}
+}
@@ -0,0 +1,86 @@
+package test;
+
+import ast.List;
+import ast.Module;
+import ast.Program;
+import ast.ScopeIndex;
+import frontend.ProgramLoader;
+
+/**
+ * Measures how checking a program scales with the number of declarations, with and without
+ * a {@link ScopeIndex}. The program has a module with the given number of fields and as many
+ * functions, each using a field and calling a function of the module, and one function with
+ * a local variable for every eight fields; a second module imports the first and uses all of
+ * its fields and functions. Every run checks a fresh copy of the program, and the time with
+ * the index includes building it. Only name analysis and type checking are measured, as flow
+ * checking does not look up names.
+ *
+ * Run with the numbers of declarations to measure (default 1000, 2000, 4000, 8000 and 16000);
+ * the system property {@code runs} sets the number of measured runs (default 5), after two runs
+ * that warm up the JIT and are not measured.
+ */
+public class ScopeBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int[] counts = { 1000, 2000, 4000, 8000, 16000 };
+		if(args.length > 0) {
+			counts = new int[args.length];
+			for(int i = 0; i < args.length; ++i)
+				counts[i] = Integer.parseInt(args[i]);
+		}
+		Benchmark benchmark = new Benchmark("scope", 2, Integer.getInteger("runs", 5));
+
+		for(int count : counts) {
+			List<Module> modules = new ProgramLoader().parseModules(program(count));
+			long[] linear = new long[benchmark.getRuns()], indexed = new long[benchmark.getRuns()];
+			for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+				Program program = new Program(modules.fullCopy());
+				long start = System.nanoTime();
+				check(program);
+				long checked = System.nanoTime();
+
+				program = new Program(modules.fullCopy());
+				long copied = System.nanoTime();
+				ScopeIndex.index(program);
+				check(program);
+				long checkedIndexed = System.nanoTime();
+				if(i >= 0) {
+					linear[i] = checked - start;
+					indexed[i] = checkedIndexed - copied;
+				}
+			}
+			benchmark.setup("%d fields and functions", count);
+			benchmark.report("searching declarations", linear);
+			benchmark.report("scope index", indexed);
+		}
+		benchmark.finish();
+	}
+
+	private static String[] program(int count) {
+		StringBuilder big = new StringBuilder("module Big {\n");
+		for(int i = 0; i < count; ++i)
+			big.append("\tpublic int f").append(i).append(";\n");
+		for(int i = 0; i < count; ++i)
+			big.append("\tpublic int g").append(i).append("(int p) { return p + f").append(i)
+				.append(" + g").append((i + 1) % count).append("(p); }\n");
+		int locals = Math.max(count / 8, 1);
+		big.append("\tint locals() {\n");
+		for(int i = 0; i < locals; ++i)
+			big.append("\t\tint v").append(i).append("; v").append(i).append(" = f").append(i)
+				.append(i == 0 ? "" : " + v" + (i - 1)).append(";\n");
+		big.append("\t\treturn v").append(locals - 1).append(";\n\t}\n}\n");
+
+		StringBuilder user = new StringBuilder("module User {\n\timport Big;\n");
+		for(int i = 0; i < count; ++i)
+			user.append("\tint u").append(i).append("() { return g").append(i).append("(f").append(i).append("); }\n");
+		user.append("}\n");
+		return new String[] { big.toString(), user.toString() };
+	}
+
+	private static void check(Program program) {
+		program.namecheck();
+		program.typecheck();
+		if(program.hasErrors())
+			throw new IllegalStateException(program.getErrors().iterator().next().toString());
+	}
+}
@@ -0,0 +1,142 @@
+package test;
+
+import java.util.ArrayList;
+
+import soot.RefType;
+import soot.Type;
+import ast.ASTNode;
+import ast.ArrayType;
+import ast.BooleanType;
+import ast.Expr;
+import ast.IntType;
+import ast.JavaType;
+import ast.List;
+import ast.Module;
+import ast.Program;
+import ast.TypeDescriptor;
+import ast.TypeName;
+import ast.Visitor;
+import ast.VoidType;
+import backend.ProgramCodeGenerator;
+import backend.SootTypeUtil;
+import frontend.ProgramLoader;
+
+/**
+ * Measures type checking and code generation on a module full of array types, and the
+ * conversions of its types to Soot types with the cache of {@link SootTypeUtil} and without
+ * it, the way {@link SootTypeUtil#getSootType(TypeDescriptor)} converted every type before.
+ * The conversions take the type of every expression and type name of the module, in tree
+ * order, which is about as many types as code generation converts. Type checking does not
+ * convert types at all: the type descriptors are already unique per type, and the checks
+ * compare them by identity.
+ *
+ * Run with the number of functions in the module (default 2000) and the number of measured
+ * runs (default 10); the first runs warm up the JIT and are not measured.
+ */
+public class SootTypeBenchmark {
+	private static final String FUNCTION = "\tpublic int[][] a%d(int[][] p, int[] q, S[] s) {\n"
+			+ "\t\tint[][] r; int[] t; S[][] u;\n"
+			+ "\t\tr = [q, [1, 2, %d], p[0]]; u = [s, s];\n"
+			+ "\t\tt = r[1]; t[0] = t[1] + p[0][0] + q[2]; r[0] = t;\n"
+			+ "\t\treturn r;\n"
+			+ "\t}\n";
+
+	/** Converts a type descriptor to a Soot type without the cache. */
+	private static final Visitor<Type> UNCACHED = new Visitor<Type>() {
+		@Override
+		public Type visitIntType(IntType nd) {
+			return soot.IntType.v();
+		}
+
+		@Override
+		public Type visitBooleanType(BooleanType nd) {
+			return soot.BooleanType.v();
+		}
+
+		@Override
+		public Type visitVoidType(VoidType nd) {
+			return soot.VoidType.v();
+		}
+
+		@Override
+		public Type visitArrayType(ArrayType nd) {
+			return nd.getElementType().accept(this).makeArrayType();
+		}
+
+		@Override
+		public Type visitJavaType(JavaType nd) {
+			return RefType.v(nd.getName());
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		int functions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Benchmark benchmark = new Benchmark("Soot types", 5, runs);
+
+		StringBuilder source = new StringBuilder("module Arrays {\n\ttype S = \"java.lang.String\";\n");
+		for(int i = 0; i < functions; ++i)
+			source.append(String.format(FUNCTION, i, i));
+		List<Module> modules = new ProgramLoader().parseModules(new String[] { source.append("}\n").toString() });
+
+		long[] typechecked = new long[runs], generated = new long[runs], cached = new long[runs], uncached = new long[runs];
+		int conversions = 0;
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			Program program = new Program(modules.fullCopy());
+			program.namecheck();
+			long start = System.nanoTime();
+			program.typecheck();
+			long end = System.nanoTime();
+			if(program.hasErrors())
+				throw new IllegalStateException(program.getErrors().iterator().next().toString());
+			if(i >= 0)
+				typechecked[i] = end - start;
+
+			program.flowcheck();
+			start = System.nanoTime();
+			new ProgramCodeGenerator().generate(program);
+			end = System.nanoTime();
+			if(i >= 0)
+				generated[i] = end - start;
+
+			java.util.List<TypeDescriptor> types = types(program);
+			conversions = types.size();
+			start = System.nanoTime();
+			for(TypeDescriptor type : types)
+				SootTypeUtil.getSootType(type);
+			end = System.nanoTime();
+			if(i >= 0)
+				cached[i] = end - start;
+
+			start = System.nanoTime();
+			for(TypeDescriptor type : types)
+				type.accept(UNCACHED);
+			end = System.nanoTime();
+			if(i >= 0)
+				uncached[i] = end - start;
+		}
+		benchmark.setup("%d functions, %d types converted", functions, conversions);
+		benchmark.report("typecheck", typechecked);
+		benchmark.report("code generation", generated);
+		benchmark.report("conversions with the cache", cached);
+		benchmark.report("conversions without the cache", uncached);
+		benchmark.finish();
+	}
+
+	/** Returns the types of all expressions and type names of the given program, in tree order. */
+	private static java.util.List<TypeDescriptor> types(Program program) {
+		java.util.List<TypeDescriptor> types = new ArrayList<TypeDescriptor>();
+		java.util.List<ASTNode<?>> nodes = new ArrayList<ASTNode<?>>();
+		nodes.add(program);
+		for(int i = 0; i < nodes.size(); ++i) {
+			ASTNode<?> node = nodes.get(i);
+			if(node instanceof Expr && ((Expr)node).type() != null)
+				types.add(((Expr)node).type());
+			else if(node instanceof TypeName)
+				types.add(((TypeName)node).getDescriptor());
+			for(int j = 0; j < node.getNumChild(); ++j)
+				nodes.add(node.getChild(j));
+		}
+		return types;
+	}
+}
@@ -0,0 +1,88 @@
+package test;
+
+import java.io.StringReader;
+
+import lexer.Lexer;
+import parser.Parser;
+import ast.ASTNode;
+import ast.IterativeVisitor;
+
+/**
+ * Compares the explicit-stack traversal of {@link IterativeVisitor} with recursive dispatch
+ * through {@code accept}, and with {@link IterativeVisitor#apply(ASTNode)}, which switches from
+ * the one to the other at a certain depth, using the same visitor all three ways: once on a
+ * large generated module (see {@link ProgramGenerator}), whose trees are shallow, and once on
+ * single chains of additions of increasing length, which nest as deep as they are long.
+ *
+ * Run with the size of the generated module in characters (default 1000000) and the number of
+ * measured runs (default 30); the first runs warm up the JIT and are not measured.
+ */
+public class TraversalBenchmark {
+	private static final int[] DEPTHS = { 1000, 10000, 100000, 1000000 };
+
+	/** Counts the nodes of a tree. */
+	private static class NodeCounter extends IterativeVisitor<Integer> {
+		@Override
+		public Integer visitASTNode(ASTNode<?> nd) {
+			int count = 1;
+			for(int i = 0; i < nd.getNumChild(); ++i)
+				count += valueOf(nd.getChild(i));
+			return count;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		Benchmark benchmark = new Benchmark("traversal", 20, args.length > 1 ? Integer.parseInt(args[1]) : 30);
+
+		ASTNode<?> module = parse(new ProgramGenerator(3007).module("Bench", size));
+		benchmark.setup("generated module, %d nodes", new NodeCounter().traverse(module));
+		measure(benchmark, module);
+
+		for(int depth : DEPTHS) {
+			StringBuilder source = new StringBuilder("module Deep { int f() { return 0");
+			for(int i = 0; i < depth; ++i)
+				source.append(" + ").append(i % 10);
+			ASTNode<?> chain = parse(source.append("; } }").toString());
+			benchmark.setup("chain of %d additions", depth);
+			measure(benchmark, chain);
+		}
+		benchmark.finish();
+	}
+
+	private static ASTNode<?> parse(String source) throws Exception {
+		return (ASTNode<?>)new Parser().parse(new Lexer(new StringReader(source)));
+	}
+
+	private static void measure(Benchmark benchmark, ASTNode<?> tree) {
+		NodeCounter counter = new NodeCounter();
+		long[] recursive = new long[benchmark.getRuns()], iterative = new long[benchmark.getRuns()], applied = new long[benchmark.getRuns()];
+		boolean overflowed = false;
+		for(int i = -benchmark.getWarmup(); i < benchmark.getRuns(); ++i) {
+			long start = System.nanoTime();
+			if(!overflowed) {
+				try {
+					tree.accept(counter);
+				} catch(StackOverflowError e) {
+					overflowed = true;
+				}
+			}
+			long recursed = System.nanoTime();
+			counter.traverse(tree);
+			long traversed = System.nanoTime();
+			counter.apply(tree);
+			long end = System.nanoTime();
+			if(i >= 0) {
+				recursive[i] = recursed - start;
+				iterative[i] = traversed - recursed;
+				applied[i] = end - traversed;
+			}
+		}
+		if(overflowed)
+			benchmark.skip("recursive dispatch", "stack overflow");
+		else
+			benchmark.report("recursive dispatch", recursive);
+		benchmark.report("explicit stack", iterative);
+		benchmark.report("recursive, then explicit stack", applied);
+	}
+}